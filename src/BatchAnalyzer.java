@@ -0,0 +1,441 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Analyses every position of an EPD or PGN file on a pool of worker threads and writes the results
+ * as EPD, in the same order as the input. An EPD file gives one position per line; a PGN file
+ * gives every position of every game, from the starting position to the final one.
+ *
+ * The input is read on the calling thread and handed to the workers through a bounded queue. Each
+ * worker has its own Search, TranspositionTable and Board, so the workers share nothing but the
+ * queue. Results are written by a single writer thread, which puts them back into input order.
+ * At most a fixed window of positions is in flight at once, counting those queued, those being
+ * searched and those finished but waiting for an earlier one to be written, so memory use stays
+ * the same however long the input is, and reading blocks while the workers are behind.
+ *
+ * Each output line is the first four fields of the position followed by the operations
+ * "bm" (best move), "ce" (score in centipawns from the side to move), "acd" (depth reached),
+ * "acn" (nodes searched) and "id". A position that cannot be read keeps its place in the output
+ * with a "c0" comment saying why.
+ *
+ * @author Eligh Alvarez
+ */
+public class BatchAnalyzer {
+
+  public static final int DEFAULT_DEPTH = 6;
+
+  // Positions in flight per worker thread
+  private static final int WINDOW_PER_THREAD = 4;
+
+  private final int threads;
+  private final int window;
+  private final int maxDepth;
+  private final long timeMillis;
+  private final long maxNodes;
+  private final int megabytes;
+
+  private final BlockingQueue<Job> queue;
+  private final Semaphore permits;
+  private final Job[] finished;
+  private final Object lock;
+  private long sequence;
+  private long written;
+  private long submitted;
+  private boolean inputDone;
+  private Throwable failure;
+
+  /**
+   * One position to analyse, along with its result once a worker has finished with it.
+   */
+  private static final class Job {
+
+    // Handed to each worker once the input runs out
+    private static final Job END = new Job(-1, null, null);
+
+    private final long sequence;
+    private final String fen;
+    private final String id;
+    private String result;
+
+    private Job(long sequence, String fen, String id) {
+      this.sequence = sequence;
+      this.fen = fen;
+      this.id = id;
+    }
+  }
+
+  /**
+   * Analyses a file and writes the results.
+   * Usage: java BatchAnalyzer input [output] [threads n] [depth d] [time ms] [nodes n] [hash mb]
+   * @param args the input file, ending in .pgn for PGN and anything else for EPD, the optional
+   *     output file (standard output if left out or "-"), and the optional settings
+   */
+  public static void main(String[] args) {
+    String usage = "Usage: java BatchAnalyzer input [output] [threads n] [depth d] [time ms]"
+        + " [nodes n] [hash mb]";
+    if (args.length < 1) {
+      System.out.println(usage);
+      return;
+    }
+    String output = "-";
+    int threads = Runtime.getRuntime().availableProcessors();
+    int depth = 0;
+    long time = 0;
+    long nodes = 0;
+    int megabytes = TranspositionTable.DEFAULT_MEGABYTES;
+    int index = 1;
+    if (args.length % 2 == 0) output = args[index++];
+    try {
+      for (; index + 1 < args.length; index += 2) {
+        String value = args[index + 1];
+        switch (args[index]) {
+          case "threads": threads = Integer.parseInt(value); break;
+          case "depth": depth = Integer.parseInt(value); break;
+          case "time": time = Long.parseLong(value); break;
+          case "nodes": nodes = Long.parseLong(value); break;
+          case "hash": megabytes = Integer.parseInt(value); break;
+          default: throw new IllegalArgumentException("Unknown setting " + args[index]);
+        }
+      }
+      if (depth == 0) depth = time == 0 && nodes == 0 ? DEFAULT_DEPTH : Search.MAX_PLY - 1;
+      BatchAnalyzer analyzer = new BatchAnalyzer(threads, depth, time, nodes, megabytes);
+
+      long start = System.currentTimeMillis();
+      Writer writer = output.equals("-")
+          ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+          : Files.newBufferedWriter(Paths.get(output), StandardCharsets.UTF_8);
+      try {
+        if (args[0].toLowerCase().endsWith(".pgn")) {
+          try (PgnReader reader = new PgnReader(Paths.get(args[0]))) {
+            analyzer.analyzePgn(reader, writer);
+          }
+        } else {
+          try (BufferedReader reader = Files.newBufferedReader(Paths.get(args[0]),
+              StandardCharsets.ISO_8859_1)) {
+            analyzer.analyzeEpd(reader, writer);
+          }
+        }
+      } finally {
+        if (output.equals("-")) writer.flush();
+        else writer.close();
+      }
+      long elapsed = Math.max(1, System.currentTimeMillis() - start);
+      System.err.println("Analysed " + analyzer.getPositions() + " positions with " + threads
+          + " threads in " + elapsed + " ms (" + analyzer.getPositions() * 1000 / elapsed
+          + " positions/second)");
+    } catch (NumberFormatException e) {
+      System.out.println(usage);
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      System.out.println(e.getMessage());
+    } catch (IOException e) {
+      System.out.println("Could not analyse " + args[0] + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Creates a new BatchAnalyzer.
+   * @param threads the number of worker threads (at least 1)
+   * @param maxDepth the maximum depth to search each position to
+   * @param timeMillis the time budget per position in milliseconds, or 0 for no limit
+   * @param maxNodes the node budget per position, or 0 for no limit
+   * @param megabytes the size of each worker's TranspositionTable
+   * @throws IllegalArgumentException if a setting is out of range
+   */
+  public BatchAnalyzer(int threads, int maxDepth, long timeMillis, long maxNodes,
+      int megabytes) {
+    if (threads < 1) throw new IllegalArgumentException("There must be at least one thread");
+    if (maxDepth < 1 || maxDepth >= Search.MAX_PLY) {
+      throw new IllegalArgumentException("Depth must be between 1 and " + (Search.MAX_PLY - 1));
+    }
+    if (timeMillis < 0 || maxNodes < 0 || megabytes < 1) {
+      throw new IllegalArgumentException("Limits cannot be negative");
+    }
+    this.threads = threads;
+    this.window = threads * WINDOW_PER_THREAD;
+    this.maxDepth = maxDepth;
+    this.timeMillis = timeMillis;
+    this.maxNodes = maxNodes;
+    this.megabytes = megabytes;
+    queue = new ArrayBlockingQueue<>(window);
+    permits = new Semaphore(window);
+    finished = new Job[window];
+    lock = new Object();
+  }
+
+  /**
+   * Analyses every position of an EPD file, one position per line. Blank lines are skipped, and
+   * the "id" operation of a line, if any, is kept in its output line.
+   * @param input the EPD text to read
+   * @param output where the results are written
+   * @throws IOException if the input cannot be read or the output cannot be written
+   */
+  public void analyzeEpd(BufferedReader input, Writer output) throws IOException {
+    Thread writer = start(output);
+    try {
+      long line = 0;
+      for (String text = input.readLine(); text != null; text = input.readLine()) {
+        line++;
+        if (text.trim().isEmpty()) continue;
+        String id = epdId(text);
+        submit(text, id == null ? "line " + line : id);
+      }
+    } finally {
+      finish(writer);
+    }
+  }
+
+  /**
+   * Analyses every position of every game in a PGN file, including each game's starting
+   * position. Games the reader skips are left out.
+   * @param input the PGN games to read
+   * @param output where the results are written
+   * @throws IOException if the input cannot be read or the output cannot be written
+   */
+  public void analyzePgn(PgnReader input, Writer output) throws IOException {
+    Thread writer = start(output);
+    try {
+      StringBuilder fen = new StringBuilder(90);
+      for (PgnGame game = input.next(); game != null; game = input.next()) {
+        Position position = game.getStart();
+        for (int ply = 0; ; ply++) {
+          fen.setLength(0);
+          submit(Fen.append(fen, position).toString(), "game " + input.getGames() + " ply " + ply);
+          if (ply == game.getMoveCount()) break;
+          position.makeMove(game.getMove(ply));
+        }
+      }
+    } finally {
+      finish(writer);
+    }
+  }
+
+  /**
+   * Returns the number of positions written by the last analysis.
+   * @return the number of positions
+   */
+  public long getPositions() {
+    synchronized (lock) {
+      return written;
+    }
+  }
+
+  /**
+   * Starts the worker threads and the writer thread for one analysis.
+   * @param output where the writer thread writes the results
+   * @return the writer thread
+   */
+  private Thread start(Writer output) {
+    sequence = 0;
+    submitted = 0;
+    written = 0;
+    inputDone = false;
+    failure = null;
+    queue.clear();
+    permits.drainPermits();
+    permits.release(window);
+    for (int i = 0; i < threads; i++) {
+      Thread worker = new Thread(this::work, "BatchAnalyzer worker " + i);
+      worker.setDaemon(true);
+      worker.start();
+    }
+    Thread writer = new Thread(() -> write(output), "BatchAnalyzer writer");
+    writer.setDaemon(true);
+    writer.start();
+    return writer;
+  }
+
+  /**
+   * Queues a position for analysis, waiting while the window of positions in flight is full.
+   * @param fen the FEN or EPD text of the position
+   * @param id the id written with its result
+   * @throws IOException if the writer has failed or the wait is interrupted
+   */
+  private void submit(String fen, String id) throws IOException {
+    try {
+      permits.acquire();
+      checkFailure();
+      queue.put(new Job(sequence++, fen, id));
+      synchronized (lock) {
+        submitted++;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while reading input", e);
+    }
+  }
+
+  /**
+   * Stops the workers once the queue drains and waits for the writer to write every result.
+   * @param writer the writer thread
+   * @throws IOException if the results could not be written
+   */
+  private void finish(Thread writer) throws IOException {
+    synchronized (lock) {
+      inputDone = true;
+      lock.notifyAll();
+    }
+    try {
+      for (int i = 0; i < threads; i++) {
+        while (!queue.offer(Job.END, 100, TimeUnit.MILLISECONDS)) checkFailure();
+      }
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing results", e);
+    }
+    checkFailure();
+  }
+
+  /**
+   * Takes positions from the queue and analyses them until the end marker. Runs on each worker
+   * thread.
+   */
+  private void work() {
+    Search search = new Search(new TranspositionTable(megabytes));
+    search.setOutput(null);
+    Board board = new Board();
+    StringBuilder line = new StringBuilder(160);
+    int[] moves = new int[MoveGenerator.MAX_MOVES];
+    try {
+      for (Job job = queue.take(); job != Job.END; job = queue.take()) {
+        line.setLength(0);
+        analyze(job, search, board, line, moves);
+        job.result = line.toString();
+        synchronized (lock) {
+          finished[(int) (job.sequence % window)] = job;
+          lock.notifyAll();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Analyses one position and writes its output line.
+   * @param job the position to analyse
+   * @param search the worker's Search
+   * @param board the worker's Board
+   * @param line the StringBuilder to write the output line into
+   * @param moves a buffer for move generation
+   */
+  private void analyze(Job job, Search search, Board board, StringBuilder line, int[] moves) {
+    String fen = Fen.epdPosition(job.fen);
+    try {
+      board.loadFen(fen);
+    } catch (IllegalArgumentException e) {
+      line.append(fen).append(" c0 \"").append(e.getMessage().replace('"', '\'')).append("\";");
+      appendId(line, job.id);
+      return;
+    }
+    Position position = board.getPosition();
+    Fen.append(line, position);
+    line.setLength(line.lastIndexOf(" ", line.lastIndexOf(" ") - 1));
+
+    int move = search.search(board, maxDepth, timeMillis, maxNodes);
+    if (move != Move.NONE) {
+      line.append(" bm ").append(Move.toSan(position, move, moves)).append(';')
+          .append(" ce ").append(search.getBestScore()).append(';');
+    } else {
+      boolean mated = position.inCheck(position.getSideToMove());
+      line.append(" ce ").append(mated ? -Search.MATE : 0).append(';');
+    }
+    line.append(" acd ").append(search.getCompletedDepth()).append(';')
+        .append(" acn ").append(search.getNodes()).append(';');
+    appendId(line, job.id);
+  }
+
+  /**
+   * Writes finished results in input order until every submitted position is written. Runs on
+   * the writer thread.
+   * @param output where the results are written
+   */
+  private void write(Writer output) {
+    try {
+      while (true) {
+        Job job;
+        synchronized (lock) {
+          int slot = (int) (written % window);
+          while (finished[slot] == null && !(inputDone && written == submitted)
+              && failure == null) {
+            lock.wait();
+          }
+          if (finished[slot] == null) return;
+          job = finished[slot];
+          finished[slot] = null;
+        }
+        output.write(job.result);
+        output.write('\n');
+        synchronized (lock) {
+          written++;
+        }
+        permits.release();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | RuntimeException e) {
+      fail(e);
+    }
+  }
+
+  /**
+   * Records the first failure of a worker or the writer and wakes every waiting thread, so the
+   * analysis stops instead of waiting for a result that will never come.
+   * @param cause the failure
+   */
+  private void fail(Throwable cause) {
+    synchronized (lock) {
+      if (failure == null) failure = cause;
+      lock.notifyAll();
+    }
+    permits.release(window);
+    queue.clear();
+    for (int i = 0; i < threads; i++) queue.offer(Job.END);
+  }
+
+  /**
+   * Rethrows the failure of a worker or the writer on the reading thread.
+   * @throws IOException if a worker or the writer has failed
+   */
+  private void checkFailure() throws IOException {
+    Throwable cause;
+    synchronized (lock) {
+      cause = failure;
+    }
+    if (cause instanceof IOException) throw (IOException) cause;
+    if (cause != null) throw new IllegalStateException("Analysis failed: " + cause, cause);
+  }
+
+  /**
+   * Returns the value of the "id" operation of an EPD line.
+   * @param epd the EPD line
+   * @return the id without its quotes, or null if the line does not have one
+   */
+  private static String epdId(String epd) {
+    int index = epd.indexOf(" id \"");
+    if (index < 0) return null;
+    int end = epd.indexOf('"', index + 5);
+    return end < 0 ? null : epd.substring(index + 5, end);
+  }
+
+  /**
+   * Appends the "id" operation to an output line.
+   * @param line the output line
+   * @param id the id of the position
+   */
+  private static void appendId(StringBuilder line, String id) {
+    line.append(" id \"").append(id.replace('"', '\'')).append("\";");
+  }
+}
@@ -8,14 +8,15 @@ import java.util.ArrayList;
 public class Bishop extends GamePiece {
 
   private static final int POINT_VALUE = 3;
-  private String pieceColor;
+  private byte side;
   private Vector2 currPos;
 
   /**
-   * Creates a new Bishop of the specified ASCII color.
+   * Creates a new Bishop of the specified side.
+   * @param side Position.WHITE or Position.BLACK
    */
-  public Bishop(String pieceColor) {
-    this.pieceColor = pieceColor;
+  public Bishop(int side) {
+    this.side = (byte) side;
     this.currPos = new Vector2(-1, -1);
   }
 
@@ -30,128 +31,34 @@ public class Bishop extends GamePiece {
   /**
    * Returns a list of valid moves for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of moves for this piece.
    */
-  public ArrayList<Vector2> getMoves(Board gameBoard) {
-    ArrayList<Vector2> moves = new ArrayList<>();
-    Vector2 currPos = gameBoard.getActivePos();
-    Vector2 tempMove;
-
-    // Left Down
-    for (int i = 1; i <= 7; i++) {
-      tempMove = new Vector2(currPos.getX() - i, currPos.getY() - i);
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      } else {
-        break;
-      }
-    }
-
-    // Right Down
-    for (int i = 1; i <= 7; i++) {
-      tempMove = new Vector2(currPos.getX() + i, currPos.getY() - i);
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      } else {
-        break;
-      }
-    }
-
-    // Left Up
-    for (int i = 1; i <= 7; i++) {
-      tempMove = new Vector2(currPos.getX() - i, currPos.getY() + i);
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      } else {
-        break;
-      }
-    }
-
-    // Right Up
-    for (int i = 1; i <= 7; i++) {
-      tempMove = new Vector2(currPos.getX() + i, currPos.getY() + i);
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      } else {
-        break;
-      }
-    }
-
-    return moves;
+  public ArrayList<Vector2> getMoves(Board gameBoard, Vector2 currPos) {
+    long occupied = gameBoard.getPosition().occupied();
+    long targets = Bitboards.bishopAttacks(Board.toSquare(currPos), occupied) & ~occupied;
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
    * Returns a list of valid attacks for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of attacks for this piece.
    */
-  public ArrayList<Vector2> getAttacks(Board gameBoard) {
-    ArrayList<Vector2> attacks = new ArrayList<>();
-    Vector2 currPos = gameBoard.getActivePos();
-    Vector2 tempAttack;
-    int i;
-
-    // Left Down
-    i = 1;
-    tempAttack = new Vector2(currPos.getX() - i, currPos.getY() - i);
-    while (Board.posInBounds(tempAttack)
-        && gameBoard.posEmpty(tempAttack)) {
-      i++;
-      tempAttack = new Vector2(currPos.getX() - i, currPos.getY() - i);
-    }
-    if (Board.posInBounds(tempAttack)
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-      attacks.add(tempAttack);
-    }
-
-    // Right Down
-    i = 1;
-    tempAttack = new Vector2(currPos.getX() + i, currPos.getY() - i);
-    while (Board.posInBounds(tempAttack)
-        && gameBoard.posEmpty(tempAttack)) {
-      i++;
-      tempAttack = new Vector2(currPos.getX() + i, currPos.getY() - i);
-    }
-    if (Board.posInBounds(tempAttack)
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-      attacks.add(tempAttack);
-    }
-
-    // Left Up
-    i = 1;
-    tempAttack = new Vector2(currPos.getX() - i, currPos.getY() + i);
-    while (Board.posInBounds(tempAttack)
-        && gameBoard.posEmpty(tempAttack)) {
-      i++;
-      tempAttack = new Vector2(currPos.getX() - i, currPos.getY() + i);
-    }
-    if (Board.posInBounds(tempAttack)
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-      attacks.add(tempAttack);
-    }
-
-    // Right Up
-    i = 1;
-    tempAttack = new Vector2(currPos.getX() + i, currPos.getY() + i);
-    while (Board.posInBounds(tempAttack)
-        && gameBoard.posEmpty(tempAttack)) {
-      i++;
-      tempAttack = new Vector2(currPos.getX() + i, currPos.getY() + i);
-    }
-    if (Board.posInBounds(tempAttack)
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-      attacks.add(tempAttack);
-    }
-
-    return attacks;
+  public ArrayList<Vector2> getAttacks(Board gameBoard, Vector2 currPos) {
+    Position position = gameBoard.getPosition();
+    long targets = Bitboards.bishopAttacks(Board.toSquare(currPos), position.occupied())
+        & position.occupancy(1 - side);
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
-   * Returns the ASCII color of this piece.
-   * @return the ASCII color of this piece.
+   * Returns the side this piece plays for.
+   * @return Position.WHITE or Position.BLACK
    */
-  public String getColor() {
-    return pieceColor;
+  public int getSide() {
+    return side;
   }
 
   /**
@@ -159,7 +66,7 @@ public class Bishop extends GamePiece {
    * @return a String representation of this piece.
    */
   public String toString() {
-    return pieceColor + "B" + Chess.DEFAULT_COLOR;
+    return BoardRenderer.sideColor(side) + "B" + Chess.DEFAULT_COLOR;
   }
 
   /**
@@ -175,7 +82,7 @@ public class Bishop extends GamePiece {
    * @return a duplicate copy of this piece.
    */
   public GamePiece copy() {
-    Bishop copy = new Bishop(this.pieceColor);
+    Bishop copy = new Bishop(this.side);
     copy.currPos = this.currPos.deepCopy();
     return copy;
   }
@@ -0,0 +1,265 @@
+/**
+ * Contains static helpers for working with bitboards, 64-bit sets of Squares. Bit n of a
+ * bitboard is the Square at column (n % 8) + 1 and row (n / 8) + 1, so a1 is bit 0 and h8 is
+ * bit 63.
+ *
+ * @author Eligh Alvarez
+ */
+public final class Bitboards {
+
+  public static final long FILE_A = 0x0101010101010101L;
+  public static final long FILE_H = FILE_A << 7;
+  public static final long RANK_1 = 0xFFL;
+  public static final long RANK_8 = RANK_1 << 56;
+
+  private static final long NOT_FILE_A = ~FILE_A;
+  private static final long NOT_FILE_H = ~FILE_H;
+  private static final long NOT_FILE_AB = ~(FILE_A | (FILE_A << 1));
+  private static final long NOT_FILE_GH = ~(FILE_H | (FILE_H >>> 1));
+
+  // Attacks of the leaping pieces from each square, built once when the class is loaded
+  public static final long[] KNIGHT_ATTACKS = new long[64];
+  public static final long[] KING_ATTACKS = new long[64];
+  public static final long[][] PAWN_ATTACKS = new long[2][64];
+
+  static {
+    for (int square = 0; square < 64; square++) {
+      long b = 1L << square;
+      KNIGHT_ATTACKS[square] = ((b << 17) & NOT_FILE_A) | ((b << 15) & NOT_FILE_H)
+          | ((b << 10) & NOT_FILE_AB) | ((b << 6) & NOT_FILE_GH)
+          | ((b >>> 17) & NOT_FILE_H) | ((b >>> 15) & NOT_FILE_A)
+          | ((b >>> 10) & NOT_FILE_GH) | ((b >>> 6) & NOT_FILE_AB);
+
+      long sides = ((b << 1) & NOT_FILE_A) | ((b >>> 1) & NOT_FILE_H);
+      long row = b | sides;
+      KING_ATTACKS[square] = sides | (row << 8) | (row >>> 8);
+
+      PAWN_ATTACKS[Position.WHITE][square] = ((b << 7) & NOT_FILE_H) | ((b << 9) & NOT_FILE_A);
+      PAWN_ATTACKS[Position.BLACK][square] = ((b >>> 9) & NOT_FILE_H) | ((b >>> 7) & NOT_FILE_A);
+    }
+  }
+
+  // Magic bitboards for the sliding pieces. The occupied squares along a piece's rays are
+  // multiplied by a per-square magic number so that the top bits of the product index a table
+  // holding the attacks for that occupancy. The magics below were found by a random search and
+  // are only checked here; the tables themselves are filled in when the class is loaded.
+  private static final long[] ROOK_MAGICS = {
+    0x0A00120081004022L, 0x0440004010002000L, 0x0200081040820020L,
+    0x4080040800100080L, 0xA080020400880080L, 0x2300080201000400L,
+    0x2900009402001100L, 0x4100060844208900L, 0x030D800240068028L,
+    0x0044400420005000L, 0x0040808020001000L, 0x0120800800801002L,
+    0x1001000408010010L, 0x8110802200840080L, 0x4241000401000200L,
+    0x0020800100005080L, 0x00AB228005804000L, 0x5040042008100021L,
+    0x0000888020021000L, 0x0600090010002100L, 0x0095808008010400L,
+    0x0085010008040002L, 0x8080040001021008L, 0x1480020001004084L,
+    0x111A81208000C000L, 0x8820002540100040L, 0xC210100080200084L,
+    0x060100210010000CL, 0x2001006500080010L, 0x0C120006000C1810L,
+    0x2800320C00100809L, 0x8401004200259401L, 0x4080002000404000L,
+    0x0248400081003100L, 0x0002801004802000L, 0x6000100084800800L,
+    0x0000040080800800L, 0x4080800400800201L, 0x1001881084002142L,
+    0x0112005302000C84L, 0x0880024020014000L, 0x08C0008041010020L,
+    0x0320001008004040L, 0x0004084012020020L, 0x2000050008010010L,
+    0x10020010052E0018L, 0x220200110842008CL, 0x004100804C020011L,
+    0x0080010080482900L, 0x0100400420100840L, 0x001010200C410100L,
+    0x4800090020100100L, 0x0401001204080100L, 0x1540040080020080L,
+    0x000A000448014200L, 0x10000C0041008A00L, 0x0000208000104101L,
+    0x8000104000208101L, 0x012000110022C129L, 0x0024100045210009L,
+    0x0102002108841002L, 0x0502000410014882L, 0x0022900158020094L,
+    0x8000004100882402L
+  };
+  private static final long[] BISHOP_MAGICS = {
+    0x4008080808084810L, 0x2090841084084052L, 0x1004070C0F0C0004L,
+    0x001C140080042080L, 0x0019104000900801L, 0x81009010881C8002L,
+    0xA004020242A14082L, 0x6000820800820912L, 0x0002600911410404L,
+    0x8040318202040020L, 0x0100240440820E02L, 0x00084C0410940408L,
+    0x8520020210000104L, 0x0090220110090108L, 0x0480004402084040L,
+    0x0001009401084200L, 0x8008081042482808L, 0x206400101080A105L,
+    0x4702030400220200L, 0x100400484040090AL, 0x0007000820080500L,
+    0x0002800100A00100L, 0x0160800420A80844L, 0x0890304041041000L,
+    0x1102080842282810L, 0x84B034004208261CL, 0x280A300002018201L,
+    0x8010040000401020L, 0x0041040012002102L, 0x0010030000804144L,
+    0x4101084801041000L, 0x262210C002242200L, 0x0004504202240400L,
+    0x1344500800042104L, 0x0108280800610A00L, 0x0202004042640100L,
+    0x0820420020020080L, 0x0938088100880900L, 0x0016440400014208L,
+    0x2002208122020610L, 0x0021084804014080L, 0x0201010882C02000L,
+    0x0206030041016804L, 0x0A08806013024801L, 0x0100080100400401L,
+    0x8220208102002040L, 0x40280A0812440220L, 0x6810041080200880L,
+    0x8104441048080004L, 0x0008220110880080L, 0x0004208422980050L,
+    0x2841C20020880000L, 0x2804010410442100L, 0x0840200202820300L,
+    0x001030012820A082L, 0x2020040092004208L, 0x4022808400A24000L,
+    0x0088848A01100302L, 0x830000C200422200L, 0x804002001A841104L,
+    0x8004001010460620L, 0x8032030860080222L, 0x2100100282040428L,
+    0x0240010101010100L
+  };
+
+  private static final long[] ROOK_MASKS = new long[64];
+  private static final int[] ROOK_SHIFTS = new int[64];
+  private static final long[][] ROOK_TABLE = new long[64][];
+  private static final long[] BISHOP_MASKS = new long[64];
+  private static final int[] BISHOP_SHIFTS = new int[64];
+  private static final long[][] BISHOP_TABLE = new long[64][];
+
+  static {
+    for (int square = 0; square < 64; square++) {
+      initMagic(square, true, ROOK_MAGICS, ROOK_MASKS, ROOK_SHIFTS, ROOK_TABLE);
+      initMagic(square, false, BISHOP_MAGICS, BISHOP_MASKS, BISHOP_SHIFTS, BISHOP_TABLE);
+    }
+  }
+
+  private Bitboards() {}
+
+  /**
+   * Returns a bitboard containing only the provided square.
+   * @param square the square index (0-63)
+   * @return a bitboard with only the provided square set
+   */
+  public static long bit(int square) {
+    return 1L << square;
+  }
+
+  /**
+   * Returns the squares attacked by a Pawn of the provided color standing on the provided square.
+   * @param color the color of the Pawn (Position.WHITE or Position.BLACK)
+   * @param square the square of the Pawn
+   * @return the squares diagonally in front of the Pawn
+   */
+  public static long pawnAttacks(int color, int square) {
+    return PAWN_ATTACKS[color][square];
+  }
+
+  /**
+   * Returns the squares attacked by a Knight standing on the provided square.
+   * @param square the square of the Knight
+   * @return the squares a Knight can reach from the provided square
+   */
+  public static long knightAttacks(int square) {
+    return KNIGHT_ATTACKS[square];
+  }
+
+  /**
+   * Returns the squares attacked by a King standing on the provided square.
+   * @param square the square of the King
+   * @return the squares adjacent to the provided square
+   */
+  public static long kingAttacks(int square) {
+    return KING_ATTACKS[square];
+  }
+
+  /**
+   * Returns the squares attacked by a Rook on the provided square. Each ray stops at (and
+   * includes) the first occupied square.
+   * @param square the square of the Rook
+   * @param occupied the set of all occupied squares
+   * @return the squares attacked along the ranks and files
+   */
+  public static long rookAttacks(int square, long occupied) {
+    return ROOK_TABLE[square][(int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square])
+        >>> ROOK_SHIFTS[square])];
+  }
+
+  /**
+   * Returns the squares attacked by a Bishop on the provided square. Each ray stops at (and
+   * includes) the first occupied square.
+   * @param square the square of the Bishop
+   * @param occupied the set of all occupied squares
+   * @return the squares attacked along the diagonals
+   */
+  public static long bishopAttacks(int square, long occupied) {
+    return BISHOP_TABLE[square][(int) (((occupied & BISHOP_MASKS[square])
+        * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+  }
+
+  /**
+   * Returns the squares attacked by a Queen on the provided square.
+   * @param square the square of the Queen
+   * @param occupied the set of all occupied squares
+   * @return the union of the Rook and Bishop attacks from the provided square
+   */
+  public static long queenAttacks(int square, long occupied) {
+    return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+  }
+
+  /**
+   * Returns the attacks of a sliding piece by walking each of its rays.
+   * @param square the square of the piece
+   * @param occupied the set of all occupied squares
+   * @param rook true for the ranks and files, false for the diagonals
+   * @return the squares attacked from the provided square
+   */
+  private static long slidingAttacks(int square, long occupied, boolean rook) {
+    if (rook) {
+      return slide(square, occupied, -1, 0) | slide(square, occupied, 1, 0)
+          | slide(square, occupied, 0, 1) | slide(square, occupied, 0, -1);
+    }
+    return slide(square, occupied, -1, -1) | slide(square, occupied, 1, -1)
+        | slide(square, occupied, -1, 1) | slide(square, occupied, 1, 1);
+  }
+
+  /**
+   * Returns the squares whose occupancy matters to a sliding piece: every square along its rays
+   * except the last one on the edge of the board, which is attacked whether or not it is occupied.
+   * @param square the square of the piece
+   * @param rook true for the ranks and files, false for the diagonals
+   * @return the relevant occupancy mask
+   */
+  private static long relevantMask(int square, boolean rook) {
+    long edges = ((RANK_1 | RANK_8) & ~(RANK_1 << (square & ~7)))
+        | ((FILE_A | FILE_H) & ~(FILE_A << (square & 7)));
+    return slidingAttacks(square, 0L, rook) & ~edges;
+  }
+
+  /**
+   * Fills in the attack table of a sliding piece on the provided square. Every subset of the
+   * relevant occupancy mask is enumerated and its attacks stored at the slot its magic product
+   * selects.
+   * @param square the square of the piece
+   * @param rook true for the ranks and files, false for the diagonals
+   * @param magics the magic multipliers of each square
+   * @param masks the relevant occupancy masks to fill in
+   * @param shifts the index shifts to fill in
+   * @param tables the attack tables to fill in
+   * @throws IllegalStateException if two occupancies with different attacks share a slot
+   */
+  private static void initMagic(int square, boolean rook, long[] magics, long[] masks,
+      int[] shifts, long[][] tables) {
+    long mask = relevantMask(square, rook);
+    int shift = 64 - Long.bitCount(mask);
+    long[] table = new long[1 << (64 - shift)];
+    long subset = 0L;
+    do {
+      long attacks = slidingAttacks(square, subset, rook);
+      int index = (int) ((subset * magics[square]) >>> shift);
+      if (table[index] != 0L && table[index] != attacks) {
+        throw new IllegalStateException("Bad magic for square " + square);
+      }
+      table[index] = attacks;
+      subset = (subset - mask) & mask;
+    } while (subset != 0L);
+
+    masks[square] = mask;
+    shifts[square] = shift;
+    tables[square] = table;
+  }
+
+  /**
+   * Walks a single ray from the provided square in the provided direction.
+   * @param square the starting square (not included in the result)
+   * @param occupied the set of all occupied squares
+   * @param dx the column step
+   * @param dy the row step
+   * @return the squares along the ray up to and including the first blocker
+   */
+  private static long slide(int square, long occupied, int dx, int dy) {
+    long attacks = 0L;
+    int x = (square & 7) + dx;
+    int y = (square >>> 3) + dy;
+    while (x >= 0 && x < 8 && y >= 0 && y < 8) {
+      long b = 1L << ((y << 3) + x);
+      attacks |= b;
+      if ((occupied & b) != 0) break;
+      x += dx;
+      y += dy;
+    }
+    return attacks;
+  }
+}
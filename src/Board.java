@@ -7,8 +7,19 @@ import java.util.ArrayList;
  */
 public class Board {
 
+  // Highlights of a square, from getHighlight
+  public static final int NO_HIGHLIGHT = 0;
+  public static final int ACTIVE_HIGHLIGHT = 1;
+  public static final int MOVE_HIGHLIGHT = 2;
+  public static final int ATTACK_HIGHLIGHT = 3;
+
   private Square[][] squares;
   private Vector2 activePos;
+  private Position position;
+
+  // One bit per square index for the moves and attacks of the active piece
+  private long moveHighlights;
+  private long attackHighlights;
 
   /**
    * Creates a new empty Chess board
@@ -16,12 +27,21 @@ public class Board {
   public Board() {
     squares = new Square[8][8];
     for (int i = 0; i < 8; i++) {
-      for (int j = 0; j < 8; j++) {
-        if ((i + j) % 2 == 0) squares[i][j] = new Square(null, Chess.LIGHT_SPACE_COLOR);
-        else squares[i][j] = new Square(null, Chess.DARK_SPACE_COLOR);
-      }
+      for (int j = 0; j < 8; j++) squares[i][j] = new Square(null);
     }
     activePos = new Vector2(0, 0);
+    position = new Position();
+  }
+
+  /**
+   * Creates a new Board containing the pieces and state of the provided Position.
+   * @param source the Position to convert
+   * @return a new Board equivalent to the provided Position
+   */
+  public static Board fromPosition(Position source) {
+    Board board = new Board();
+    board.loadPosition(source);
+    return board;
   }
 
   /**
@@ -49,17 +69,9 @@ public class Board {
    * @return a String representation of this board
    */
   public String toString() {
-    StringBuilder str = new StringBuilder();
-    for (int i = 0; i < 8; i++) {
-      str.append((8 - i));
-      str.append(" ");
-      for (Square square : squares[i]) {
-        str.append(square.toString());
-      }
-      str.append("\n");
-    }
-    str.append("   a  b  c  d  e  f  g  h\n");
-    return str.toString();
+    BoardRenderer renderer = new BoardRenderer(true);
+    renderer.render(this);
+    return renderer.toString();
   }
 
   /**
@@ -69,6 +81,33 @@ public class Board {
    */
   public void putPiece(GamePiece piece, Vector2 pos) {
     getSquare(pos).setPiece(piece);
+    int square = toSquare(pos);
+    if (piece == null) position.removePiece(square);
+    else position.putPiece(pieceCode(piece), square, hasMoved(piece));
+  }
+
+  /**
+   * Moves the piece at one position to another, taking any piece at the target position. The
+   * move is not checked for validity.
+   * @param from The position of the piece to move
+   * @param to The target position
+   */
+  public void movePiece(Vector2 from, Vector2 to) {
+    Square current = getSquare(from);
+    Square target = getSquare(to);
+    current.getPiece().move(new Vector2(to.getX(), to.getY()));
+    target.setPiece(current.getPiece());
+    current.setPiece(null);
+    position.movePiece(toSquare(from), toSquare(to));
+  }
+
+  /**
+   * Returns a reference to the Square at a Position square index.
+   * @param square the square index, from 0 (a1) to 63 (h8)
+   * @return the Square at that index
+   */
+  public Square getSquareAt(int square) {
+    return squares[7 - (square >>> 3)][square & 7];
   }
 
   /**
@@ -81,6 +120,152 @@ public class Board {
     else return squares[8 - pos.getY()][pos.getX() - 1];
   }
 
+  /**
+   * Returns the bitboard Position kept in step with the pieces on this Board. The returned
+   * Position is live and must not be modified directly.
+   * @return the Position backing this Board
+   */
+  public Position getPosition() {
+    return position;
+  }
+
+  /**
+   * Returns a copy of the bitboard Position equivalent to this Board.
+   * @return a Position with the same pieces and state as this Board
+   */
+  public Position toPosition() {
+    return position.copy();
+  }
+
+  /**
+   * Returns the side to move, which is the opposite of the side that last moved.
+   * @return Position.WHITE or Position.BLACK
+   */
+  public int getSideToMove() {
+    return position.getSideToMove();
+  }
+
+  /**
+   * Replaces the pieces and state of this Board with those of the provided Position.
+   * @param source the Position to load
+   */
+  public void loadPosition(Position source) {
+    position.copyFrom(source);
+    loadSquares();
+  }
+
+  /**
+   * Replaces the pieces and state of this Board with those described by a FEN string.
+   * @param fen the FEN string to load
+   * @throws IllegalArgumentException if the string is not valid FEN, in which case this Board is
+   *     left unchanged
+   */
+  public void loadFen(CharSequence fen) {
+    Fen.parse(fen, position);
+    loadSquares();
+  }
+
+  /**
+   * Returns the FEN string of this Board.
+   * @return the FEN string describing the pieces and state of this Board
+   */
+  public String toFen() {
+    return Fen.toFen(position);
+  }
+
+  /**
+   * Replaces the pieces on every Square with those of this Board's Position and clears the active
+   * square.
+   */
+  private void loadSquares() {
+    for (int square = 0; square < 64; square++) {
+      int code = position.pieceAt(square);
+      GamePiece piece = code == Position.NO_PIECE ? null : createPiece(code);
+      if (piece != null && position.hasMoved(square)) piece.move(toPos(square));
+      squares[7 - (square >>> 3)][square & 7].setPiece(piece);
+    }
+    setActiveSquare(new Vector2(0, 0));
+  }
+
+  /**
+   * Returns whether the provided position is attacked by any piece of the specified side.
+   * @param pos The position to check
+   * @param side The side of the attacking pieces, Position.WHITE or Position.BLACK
+   * @return true if the position is attacked, false otherwise
+   */
+  public boolean isAttacked(Vector2 pos, int side) {
+    return posInBounds(pos) && position.isAttacked(toSquare(pos), side);
+  }
+
+  /**
+   * Returns the Position square index (0-63) of the provided position.
+   * @param pos The position to convert
+   * @return the square index of the position
+   */
+  public static int toSquare(Vector2 pos) {
+    return Position.square(pos.getX(), pos.getY());
+  }
+
+  /**
+   * Returns the position of the provided Position square index.
+   * @param square The square index to convert
+   * @return the position of the square index
+   */
+  public static Vector2 toPos(int square) {
+    return new Vector2(Position.squareX(square), Position.squareY(square));
+  }
+
+  /**
+   * Returns the Position piece code of the provided piece.
+   * @param piece The piece to convert
+   * @return the piece code of the piece
+   */
+  public static int pieceCode(GamePiece piece) {
+    int type;
+    if (piece instanceof Pawn) type = Position.PAWN;
+    else if (piece instanceof Knight) type = Position.KNIGHT;
+    else if (piece instanceof Bishop) type = Position.BISHOP;
+    else if (piece instanceof Rook) type = Position.ROOK;
+    else if (piece instanceof Queen) type = Position.QUEEN;
+    else type = Position.KING;
+    return Position.pieceCode(piece.getSide(), type);
+  }
+
+  /**
+   * Creates a new piece for the provided Position piece code.
+   * @param code The piece code
+   * @return a new, unmoved piece of the matching type and color
+   */
+  public static GamePiece createPiece(int code) {
+    int color = Position.colorOf(code);
+    switch (Position.typeOf(code)) {
+      case Position.PAWN:
+        return new Pawn(color);
+      case Position.KNIGHT:
+        return new Knight(color);
+      case Position.BISHOP:
+        return new Bishop(color);
+      case Position.ROOK:
+        return new Rook(color);
+      case Position.QUEEN:
+        return new Queen(color);
+      default:
+        return new King(color);
+    }
+  }
+
+  /**
+   * Returns whether the provided piece has moved. Pieces without a moved-flag report true.
+   * @param piece The piece to check
+   * @return true if the piece has moved or does not track moves, false otherwise
+   */
+  private static boolean hasMoved(GamePiece piece) {
+    if (piece instanceof Pawn) return ((Pawn) piece).hasMoved();
+    if (piece instanceof Rook) return ((Rook) piece).hasMoved();
+    if (piece instanceof King) return ((King) piece).hasMoved();
+    return true;
+  }
+
   /**
    * Sets the Square at the specified position as the active square
    * @param pos The new active position
@@ -107,63 +292,61 @@ public class Board {
   }
 
   /**
-   * Updates the contextual colors for moves and attacks based on the active position and the
-   * piece at that position.
+   * Returns the highlight of a square: whether it holds the active piece or is one of its moves
+   * or attacks.
+   * @param square the square index, from 0 (a1) to 63 (h8)
+   * @return NO_HIGHLIGHT, ACTIVE_HIGHLIGHT, MOVE_HIGHLIGHT or ATTACK_HIGHLIGHT
    */
-  private void updateHighlights() {
-    setBaseColors();
-    if (!posInBounds(activePos)) return;
-
-    Square activeSquare = getActiveSquare();
-    activeSquare.setColor(Chess.ACTIVE_SPACE_COLOR);
-
-    ArrayList<Vector2> moves = activeSquare.getPiece().getMoves(this);
-    for (Vector2 move : moves) {
-      getSquare(move).setColor(Chess.MOVE_SPACE_COLOR);
-    }
+  public int getHighlight(int square) {
+    long bit = 1L << square;
+    if ((attackHighlights & bit) != 0) return ATTACK_HIGHLIGHT;
+    if ((moveHighlights & bit) != 0) return MOVE_HIGHLIGHT;
+    if (posInBounds(activePos) && toSquare(activePos) == square) return ACTIVE_HIGHLIGHT;
+    return NO_HIGHLIGHT;
+  }
 
-    ArrayList<Vector2> attacks = activeSquare.getPiece().getAttacks(this);
-    for (Vector2 attack : attacks) {
-      getSquare(attack).setColor(Chess.ATTACK_SPACE_COLOR);
-    }
+  /**
+   * Returns the highlight of the Square at the specified position.
+   * @param pos The position to check
+   * @return the highlight of the position, or NO_HIGHLIGHT if it is out of bounds
+   */
+  public int getHighlight(Vector2 pos) {
+    return posInBounds(pos) ? getHighlight(toSquare(pos)) : NO_HIGHLIGHT;
   }
 
   /**
-   * Sets all Square colors to their base colors (removes contextual colors)
+   * Updates the highlighted moves and attacks based on the active position and the piece at that
+   * position.
    */
-  private void setBaseColors() {
-    for (int i = 0; i < 8; i++) {
-      for (int j = 0; j < 8; j++) {
-        if ((i + j) % 2 == 0) squares[i][j].setColor(Chess.LIGHT_SPACE_COLOR);
-        else squares[i][j].setColor(Chess.DARK_SPACE_COLOR);
-      }
-    }
+  private void updateHighlights() {
+    moveHighlights = 0;
+    attackHighlights = 0;
+    if (!posInBounds(activePos)) return;
+
+    GamePiece activePiece = getActiveSquare().getPiece();
+    for (Vector2 move : activePiece.getMoves(this)) moveHighlights |= 1L << toSquare(move);
+    for (Vector2 attack : activePiece.getAttacks(this)) attackHighlights |= 1L << toSquare(attack);
   }
 
   /**
-   * Returns a list of pieces attacked by the specified color.
-   * @param pieceColor The color with which to determine attacked spaces.
+   * Returns a list of pieces attacked by the specified side.
+   * @param side The side whose attacks to list, Position.WHITE or Position.BLACK
    * @return a list of attacked pieces
    */
-  public ArrayList<Vector2> getAllAttacks(String pieceColor) {
-    Vector2 originalActivePos = activePos.deepCopy();
-    Vector2 tempPos = null;
-    GamePiece tempPiece = null;
-
+  public ArrayList<Vector2> getAllAttacks(int side) {
     ArrayList<Vector2> allAttacks = new ArrayList<>();
+    long attackers = position.occupancy(side);
 
-    for (int i = 1; i <= 8; i++) {
-      for (int j = 1; j <= 8; j++) {
-        tempPos = new Vector2(i, j);
-        tempPiece = getSquare(tempPos).getPiece();
-        if (tempPiece != null && tempPiece.getColor().equals(pieceColor)) {
-          setActiveSquare(tempPos);
-          allAttacks.addAll(tempPiece.getAttacks(this));
-        }
+    while (attackers != 0) {
+      int square = Long.numberOfTrailingZeros(attackers);
+      attackers &= attackers - 1;
+      long targets = position.capturesFrom(square);
+      while (targets != 0) {
+        allAttacks.add(toPos(Long.numberOfTrailingZeros(targets)));
+        targets &= targets - 1;
       }
     }
 
-    setActiveSquare(originalActivePos);
     return allAttacks;
   }
 
@@ -187,6 +370,7 @@ public class Board {
       }
     }
 
+    copy.position.copyFrom(this.position);
     copy.setActiveSquare(this.activePos.deepCopy());
 
     return copy;
@@ -199,23 +383,56 @@ public class Board {
    * @return true if the move results in a check, false otherwise
    */
   public boolean movesIntoCheck(Vector2 move) {
-    Board preview = this.copy();
-    String currColor = preview.getActiveSquare().getPiece().getColor();
-    String oppositeColor = currColor.equals(Chess.WHITE_PIECE_COLOR)
-        ? Chess.BLACK_PIECE_COLOR : Chess.WHITE_PIECE_COLOR;
-
-    // Set up a preview of the move in a copy of the current board.
-    preview.getActiveSquare().getPiece().move(new Vector2(move.getX(), move.getY()));
-    preview.getSquare(move).setPiece(preview.getActiveSquare().getPiece());
-    preview.getActiveSquare().setPiece(null);
-    preview.setActiveSquare(new Vector2(0, 0));
+    return movesIntoCheck(activePos, move);
+  }
 
-    ArrayList<Vector2> enemyAttacks = preview.getAllAttacks(oppositeColor);
+  /**
+   * Determines if a move between the provided positions will result in a check on the moving
+   * color's King. The move is played and taken back on this Board's Position, so nothing is
+   * copied.
+   * @param from the position of the piece to move
+   * @param to the position to move the piece to
+   * @return true if the move results in a check, false otherwise
+   */
+  public boolean movesIntoCheck(Vector2 from, Vector2 to) {
+    int move = encodeMove(from, to);
+    return move != Move.NONE && !position.isLegal(move);
+  }
 
-    for (Vector2 attack : enemyAttacks) {
-      if (getSquare(attack).getPiece() instanceof King) return true;
-    }
+  /**
+   * Returns the tablebase score of a move between the provided positions, from the moving
+   * color's point of view. The move is played and taken back on this Board's Position.
+   * @param tablebase the Tablebase to probe
+   * @param from the position of the piece to move
+   * @param to the position to move the piece to
+   * @return the score after the move, scored like Search's mate scores, or Tablebase.NOT_FOUND if
+   *     the move is not legal or the resulting position is not covered
+   */
+  public int tablebaseScore(Tablebase tablebase, Vector2 from, Vector2 to) {
+    int move = encodeMove(from, to);
+    if (move == Move.NONE || !position.isLegal(move)) return Tablebase.NOT_FOUND;
+    position.makeMove(move);
+    int score = tablebase.probe(position);
+    position.unmakeMove(move);
+    return score == Tablebase.NOT_FOUND ? score : -score;
+  }
 
-    return false;
+  /**
+   * Encodes a move between the provided positions for this Board's Position.
+   * @param from the position of the piece to move
+   * @param to the position to move the piece to
+   * @return the move, or Move.NONE if either position is out of bounds, there is no piece to
+   *     move or the target holds a piece of the same color
+   */
+  private int encodeMove(Vector2 from, Vector2 to) {
+    if (!posInBounds(from) || !posInBounds(to)) return Move.NONE;
+    int fromSquare = toSquare(from);
+    int toSquare = toSquare(to);
+    int piece = position.pieceAt(fromSquare);
+    int captured = position.pieceAt(toSquare);
+    if (piece == Position.NO_PIECE) return Move.NONE;
+    if (captured != Position.NO_PIECE
+        && Position.colorOf(captured) == Position.colorOf(piece)) return Move.NONE;
+    return Move.encode(fromSquare, toSquare, piece, captured);
   }
-}
\ No newline at end of file
+}
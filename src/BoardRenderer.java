@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Renders a Board as text into a reusable byte buffer. The bytes of every square, for each
+ * highlight and each piece, are built once when the class loads, so rendering only copies them
+ * into place and allocates nothing. The pieces are read from the Board's Position and the
+ * highlights from its highlight bitmasks; this is the only place sides and highlights are mapped to
+ * ANSI colors.
+ *
+ * The ANSI mode produces exactly the same text as Board.toString. The plain mode uses no escape
+ * sequences, for logs and output that is not a terminal: white pieces are upper case, black pieces
+ * lower case, and highlights are shown by the brackets around a square: "<K>" for the selected
+ * piece, "( )" for a move and "{p}" for an attack.
+ *
+ * @author Eligh Alvarez
+ */
+public class BoardRenderer {
+
+  // Shades and highlights, in the order of the precomputed tables. A highlighted square's index is
+  // its Board highlight plus one.
+  private static final int LIGHT = 0;
+  private static final int DARK = 1;
+  private static final int ATTACK = Board.ATTACK_HIGHLIGHT + 1;
+
+  private static final String[] HIGHLIGHT_COLORS = {Chess.LIGHT_SPACE_COLOR,
+      Chess.DARK_SPACE_COLOR, Chess.ACTIVE_SPACE_COLOR, Chess.MOVE_SPACE_COLOR,
+      Chess.ATTACK_SPACE_COLOR};
+  private static final String[] PLAIN_BRACKETS = {"[]", "[]", "<>", "()", "{}"};
+  private static final String PIECE_LETTERS = "PNBRQK";
+
+  // Indexed by highlight, then by piece code, with empty squares last
+  private static final byte[][][] ANSI_CELLS = buildCells(true);
+  private static final byte[][][] PLAIN_CELLS = buildCells(false);
+  private static final byte[] FILE_LABELS =
+      "   a  b  c  d  e  f  g  h\n".getBytes(StandardCharsets.ISO_8859_1);
+  private static final int EMPTY = 12;
+
+  private final byte[][][] cells;
+  private final byte[] buffer;
+  private int length;
+
+  /**
+   * Creates a new BoardRenderer.
+   * @param ansi true to color the Board with ANSI escape sequences, false for plain text
+   */
+  public BoardRenderer(boolean ansi) {
+    cells = ansi ? ANSI_CELLS : PLAIN_CELLS;
+    int widest = 0;
+    for (byte[][] row : cells) {
+      for (byte[] cell : row) widest = Math.max(widest, cell.length);
+    }
+    buffer = new byte[8 * (3 + 8 * widest) + FILE_LABELS.length];
+  }
+
+  /**
+   * Renders a Board into this renderer's buffer, replacing what was there.
+   * @param board the Board to render
+   * @return the number of bytes written to the buffer
+   */
+  public int render(Board board) {
+    Position position = board.getPosition();
+    int index = 0;
+    for (int rank = 7; rank >= 0; rank--) {
+      buffer[index++] = (byte) ('1' + rank);
+      buffer[index++] = ' ';
+      for (int file = 0; file < 8; file++) {
+        int square = rank * 8 + file;
+        int code = position.pieceAt(square);
+        int highlight = board.getHighlight(square);
+        int shade = highlight != Board.NO_HIGHLIGHT ? highlight + 1
+            : ((rank + file) & 1) != 0 ? LIGHT : DARK;
+        byte[] cell = cells[shade][code == Position.NO_PIECE ? EMPTY : code];
+        System.arraycopy(cell, 0, buffer, index, cell.length);
+        index += cell.length;
+      }
+      buffer[index++] = '\n';
+    }
+    System.arraycopy(FILE_LABELS, 0, buffer, index, FILE_LABELS.length);
+    length = index + FILE_LABELS.length;
+    return length;
+  }
+
+  /**
+   * Renders a Board and writes it to a stream.
+   * @param board the Board to render
+   * @param out the stream to write to
+   * @throws IOException if the stream cannot be written
+   */
+  public void print(Board board, OutputStream out) throws IOException {
+    out.write(buffer, 0, render(board));
+  }
+
+  /**
+   * Renders a Board and puts it into a byte buffer, which may be direct.
+   * @param board the Board to render
+   * @param target the buffer to put the bytes into
+   * @throws java.nio.BufferOverflowException if the buffer does not have room
+   */
+  public void render(Board board, ByteBuffer target) {
+    target.put(buffer, 0, render(board));
+  }
+
+  /**
+   * Returns the buffer holding the last rendered Board. Only the first getLength bytes are part
+   * of it, and they are overwritten by the next render.
+   * @return the buffer
+   */
+  public byte[] getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Returns the number of bytes of the last rendered Board in the buffer.
+   * @return the length of the last render
+   */
+  public int getLength() {
+    return length;
+  }
+
+  /**
+   * Returns the last rendered Board as a String.
+   * @return the rendered text
+   */
+  public String toString() {
+    return new String(buffer, 0, length, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Returns the ASCII color pieces of a side are drawn in.
+   * @param side Position.WHITE or Position.BLACK
+   * @return the color of the side's pieces
+   */
+  public static String sideColor(int side) {
+    return side == Position.WHITE ? Chess.WHITE_PIECE_COLOR : Chess.BLACK_PIECE_COLOR;
+  }
+
+  /**
+   * Builds the bytes of every square for every highlight and piece.
+   * @param ansi true to build ANSI colored squares, false for plain text
+   * @return the squares, indexed by highlight and then by piece code, with empty squares last
+   */
+  private static byte[][][] buildCells(boolean ansi) {
+    byte[][][] cells = new byte[HIGHLIGHT_COLORS.length][13][];
+    for (int highlight = LIGHT; highlight <= ATTACK; highlight++) {
+      String color = HIGHLIGHT_COLORS[highlight];
+      for (int code = 0; code <= EMPTY; code++) {
+        String text;
+        if (ansi) {
+          // The same text Square.toString builds
+          text = code == EMPTY ? color + "[ ]" + Chess.DEFAULT_COLOR
+              : color + "[" + Chess.DEFAULT_COLOR + pieceColor(code)
+                  + PIECE_LETTERS.charAt(Position.typeOf(code)) + Chess.DEFAULT_COLOR + color + "]"
+                  + Chess.DEFAULT_COLOR;
+        } else {
+          char letter = code == EMPTY ? ' ' : PIECE_LETTERS.charAt(Position.typeOf(code));
+          if (code != EMPTY && Position.colorOf(code) == Position.BLACK) {
+            letter = Character.toLowerCase(letter);
+          }
+          String brackets = PLAIN_BRACKETS[highlight];
+          text = "" + brackets.charAt(0) + letter + brackets.charAt(1);
+        }
+        cells[highlight][code] = text.getBytes(StandardCharsets.ISO_8859_1);
+      }
+    }
+    return cells;
+  }
+
+  /**
+   * Returns the ASCII color a piece is drawn in.
+   * @param code the piece code
+   * @return the color of the piece
+   */
+  private static String pieceColor(int code) {
+    return sideColor(Position.colorOf(code));
+  }
+}
@@ -1,3 +1,6 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Scanner;
 
 /**
@@ -7,7 +10,7 @@ import java.util.Scanner;
  */
 public class Chess {
 
-  // ASCII Console Color Escape Characters
+  // ASCII Console Color Escape Characters, only used when rendering
   public static final String DEFAULT_COLOR = "\033[0m";
   public static final String BLACK_PIECE_COLOR = "\033[34m";
   public static final String WHITE_PIECE_COLOR = "\033[36m";
@@ -17,15 +20,32 @@ public class Chess {
   public static final String LIGHT_SPACE_COLOR = "\033[0m";
   public static final String ACTIVE_SPACE_COLOR = "\033[33m";
 
+  // Off when there is no console (output piped to a file or log), with the NO_COLOR environment
+  // variable or the "plain" argument, and forced on by the "color" argument
+  private static boolean ansiOutput = System.console() != null && System.getenv("NO_COLOR") == null;
+
   private Board gameBoard;
+  private BoardRenderer renderer;
+  private Search search;
+  private OpeningBook book;
+  private Tablebase tablebase;
   private int whitePoints;
   private int blackPoints;
 
   /**
-   * Allows players to play a game of Chess with the standard game setup.
-   * @param args (unused)
+   * Allows players to play a game of Chess with the standard game setup. With the argument "uci"
+   * the console is skipped and the engine is driven through the Universal Chess Interface instead.
+   * The Board is printed with ANSI colors only when running on a console; "plain" turns them off
+   * and "color" turns them on even when the output is piped.
+   * @param args "uci" to speak UCI, "plain" for an uncolored Board or "color" for a colored one
    */
   public static void main(String[] args) {
+    if (args.length > 0 && args[0].equals("uci")) {
+      Uci.main(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("plain")) ansiOutput = false;
+    if (args.length > 0 && args[0].equals("color")) ansiOutput = true;
     printWelcome();
     Scanner userInput = new Scanner(System.in);
     Chess game = new Chess();
@@ -42,6 +62,21 @@ public class Chess {
         case "adjust":
           game.enterAdjustMode(userInput);
           break;
+        case "perft":
+          game.executePerft(userInput);
+          break;
+        case "search":
+          game.executeSearch(userInput);
+          break;
+        case "book":
+          game.executeBook(userInput);
+          break;
+        case "tablebase":
+          game.executeTablebase(userInput);
+          break;
+        case "fen":
+          game.executeFen(userInput);
+          break;
         case "exit":
           exit = true;
           break;
@@ -60,6 +95,7 @@ public class Chess {
   // TODO: Comment out when not in use
   public Chess(Board gameBoard) {
     this.gameBoard = gameBoard;
+    renderer = new BoardRenderer(ansiOutput);
     setup();
   }
 
@@ -68,6 +104,7 @@ public class Chess {
    */
   public Chess() {
     gameBoard = new Board();
+    renderer = new BoardRenderer(ansiOutput);
     setup();
     display();
   }
@@ -82,6 +119,18 @@ public class Chess {
     System.out.println("To move the currently selected piece, using the target x and y positions,"
         + " type: \"move x y\"");
     System.out.println("To enter the adjustment mode, type: \"adjust\"");
+    System.out.println("To count the positions reachable in n moves, type: \"perft n\""
+        + " (add \"divide\" for a count per move, \"bitboard\" for the fast generator"
+        + " or \"threads t\" to count on t threads)");
+    System.out.println("To have the computer find a move, type: \"search\""
+        + " (optionally followed by \"time ms\", \"nodes n\", \"depth d\" or \"threads t\")");
+    System.out.println("To play from a Polyglot opening book, type: \"book file\""
+        + " (add \"best\" to always play the main line, or type \"book off\" to stop)");
+    System.out.println("To use endgame tablebases, type: \"tablebase directory\""
+        + " (\"tablebase moves\" to score the selected piece's moves,"
+        + " or \"tablebase off\" to stop)");
+    System.out.println("To print the position as FEN, type: \"fen\" (or \"fen string\" to load"
+        + " a position)");
     System.out.println("To exit the game, type: \"exit\"   WARNING: GAME DOES NOT SAVE\n");
   }
 
@@ -141,6 +190,187 @@ public class Chess {
     display();
   }
 
+  /**
+   * Takes user input to run perft from the current position.
+   * @param userInput The user input Scanner
+   */
+  public void executePerft(Scanner userInput) {
+    String[] userTokens = userInput.nextLine().trim().split(" ");
+    int depth;
+    boolean divide = false;
+    boolean bitboard = false;
+    int threads = 1;
+
+    try {
+      depth = Integer.parseInt(userTokens[0]);
+    } catch (NumberFormatException e) {
+      System.out.println("Perft command improperly formatted. Try again.");
+      return;
+    }
+    if (depth < 1) {
+      System.out.println("Perft depth must be at least 1.");
+      return;
+    }
+    for (int i = 1; i < userTokens.length; i++) {
+      if (userTokens[i].equals("divide")) divide = true;
+      else if (userTokens[i].equals("bitboard")) bitboard = true;
+      else if (userTokens[i].equals("threads") && i + 1 < userTokens.length) {
+        try {
+          threads = Integer.parseInt(userTokens[++i]);
+        } catch (NumberFormatException e) {
+          System.out.println("Perft command improperly formatted. Try again.");
+          return;
+        }
+      }
+    }
+
+    Perft.run(gameBoard, depth, divide, bitboard, threads);
+  }
+
+  /**
+   * Takes user input to search for the best move in the current position. The search is limited
+   * by the "time", "nodes" and "depth" options, and defaults to five seconds. The "threads"
+   * option sets how many threads search at once.
+   * @param userInput The user input Scanner
+   */
+  public void executeSearch(Scanner userInput) {
+    String[] userTokens = userInput.nextLine().trim().split(" ");
+    long time = 0;
+    long nodes = 0;
+    int depth = Search.MAX_PLY;
+    int threads = 1;
+
+    try {
+      for (int i = 0; i + 1 < userTokens.length; i += 2) {
+        if (userTokens[i].equals("time")) time = Long.parseLong(userTokens[i + 1]);
+        else if (userTokens[i].equals("nodes")) nodes = Long.parseLong(userTokens[i + 1]);
+        else if (userTokens[i].equals("depth")) depth = Integer.parseInt(userTokens[i + 1]);
+        else if (userTokens[i].equals("threads")) threads = Integer.parseInt(userTokens[i + 1]);
+      }
+    } catch (NumberFormatException e) {
+      System.out.println("Search command improperly formatted. Try again.");
+      return;
+    }
+    if (time == 0 && nodes == 0 && depth == Search.MAX_PLY) time = 5000;
+
+    if (search == null) {
+      search = new Search(new TranspositionTable(TranspositionTable.DEFAULT_MEGABYTES));
+    }
+    search.setThreads(threads);
+    search.setBook(book);
+    search.setTablebase(tablebase);
+    int move = search.search(gameBoard, depth, time, nodes);
+    if (move == Move.NONE) System.out.println("There are no legal moves.");
+    else System.out.println("Best move: " + Move.toString(move));
+  }
+
+  /**
+   * Takes user input to open a Polyglot opening book, which is then consulted before searching.
+   * "book off" closes the current book.
+   * @param userInput The user input Scanner
+   */
+  public void executeBook(Scanner userInput) {
+    String[] userTokens = userInput.nextLine().trim().split(" ");
+    if (userTokens[0].equals("off")) {
+      book = null;
+      System.out.println("Opening book disabled.");
+      return;
+    }
+    if (userTokens[0].isEmpty()) {
+      System.out.println("Book command improperly formatted. Try again.");
+      return;
+    }
+
+    try {
+      book = new OpeningBook(Paths.get(userTokens[0]));
+    } catch (IOException e) {
+      System.out.println("Could not open book: " + e.getMessage());
+      return;
+    }
+    book.setBestOnly(userTokens.length > 1 && userTokens[1].equals("best"));
+    System.out.println("Opened book with " + book.size() + " entries.");
+  }
+
+  /**
+   * Takes user input to open a directory of endgame tablebases, which are then probed while
+   * searching. "tablebase moves" prints the tablebase result of each move of the selected piece,
+   * and "tablebase off" closes the current tablebases.
+   * @param userInput The user input Scanner
+   */
+  public void executeTablebase(Scanner userInput) {
+    String directory = userInput.nextLine().trim();
+    if (directory.equals("moves")) {
+      printTablebaseMoves();
+      return;
+    }
+    if (tablebase != null) tablebase.close();
+    tablebase = null;
+    if (directory.equals("off")) {
+      System.out.println("Tablebases disabled.");
+      return;
+    }
+
+    try {
+      tablebase = new Tablebase(Paths.get(directory));
+    } catch (IOException e) {
+      System.out.println("Could not open tablebases: " + e.getMessage());
+      return;
+    }
+    System.out.println("Opened tablebases in " + directory + ".");
+  }
+
+  /**
+   * Prints the tablebase result of every legal move of the selected piece, scored through the
+   * Board so that the same legality check as moving the piece is used.
+   */
+  private void printTablebaseMoves() {
+    if (tablebase == null) {
+      System.out.println("No tablebases are open.");
+      return;
+    }
+    Vector2 from = gameBoard.getActivePos();
+    GamePiece piece = Board.posInBounds(from) ? gameBoard.getSquare(from).getPiece() : null;
+    if (piece == null || piece.getSide() != gameBoard.getSideToMove()) {
+      System.out.println("Select a piece of the side to move first.");
+      return;
+    }
+
+    ArrayList<Vector2> targets = piece.getMoves(gameBoard);
+    targets.addAll(piece.getAttacks(gameBoard));
+    for (Vector2 to : targets) {
+      if (gameBoard.movesIntoCheck(from, to)) continue;
+      int score = gameBoard.tablebaseScore(tablebase, from, to);
+      String result;
+      if (score == Tablebase.NOT_FOUND) result = "not in the tablebases";
+      else if (score > 0) result = "wins, mate in " + (Search.MATE - score) + " plies";
+      else if (score < 0) result = "loses, mated in " + (Search.MATE + score) + " plies";
+      else result = "draw";
+      System.out.println(Move.squareName(Board.toSquare(from))
+          + Move.squareName(Board.toSquare(to)) + ": " + result);
+    }
+  }
+
+  /**
+   * Takes user input to print the current position as FEN, or to load the FEN string that
+   * follows the command.
+   * @param userInput The user input Scanner
+   */
+  public void executeFen(Scanner userInput) {
+    String fen = userInput.nextLine().trim();
+    if (fen.isEmpty()) {
+      System.out.println(gameBoard.toFen());
+      return;
+    }
+
+    try {
+      gameBoard.loadFen(fen);
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      return;
+    }
+    display();
+  }
+
   /**
    * Brings the user to adjustment mode, where the user can add and remove pieces and adjust the
    * number of earned points.
@@ -160,8 +390,8 @@ public class Chess {
    * Loads the standard Chess pieces in a standard configuration in this Chess game.
    */
   private void setup() {
-    String white = WHITE_PIECE_COLOR;
-    String black = BLACK_PIECE_COLOR;
+    int white = Position.WHITE;
+    int black = Position.BLACK;
     // White Rooks
     gameBoard.putPiece(new Rook(white), new Vector2(1, 1));
     gameBoard.putPiece(new Rook(white), new Vector2(8, 1));
@@ -200,10 +430,12 @@ public class Chess {
   }
 
   /**
-   * Prints the current Board state to the console.
+   * Prints the current Board state to the console. The Board is rendered into a reused buffer, so
+   * nothing is allocated.
    */
   public void display() {
-    System.out.println(gameBoard);
+    System.out.write(renderer.getBuffer(), 0, renderer.render(gameBoard));
+    System.out.println();
   }
 
   /**
@@ -244,20 +476,17 @@ public class Chess {
       return;
     }
 
-    if (target.getColor().equals(ATTACK_SPACE_COLOR)) {
-      if (target.getPiece().getColor().equals(BLACK_PIECE_COLOR))
+    int highlight = gameBoard.getHighlight(pos);
+    if (highlight == Board.ATTACK_HIGHLIGHT) {
+      if (target.getPiece().getSide() == Position.BLACK)
         whitePoints += target.getPiece().getPoints();
       else blackPoints += target.getPiece().getPoints();
 
-      current.getPiece().move(new Vector2(pos.getX(), pos.getY()));
-      target.setPiece(current.getPiece());
-      current.setPiece(null);
+      gameBoard.movePiece(gameBoard.getActivePos(), pos);
       gameBoard.setActiveSquare(new Vector2(0, 0));
 
-    } else if (target.getColor().equals(MOVE_SPACE_COLOR)) {
-      current.getPiece().move(new Vector2(pos.getX(), pos.getY()));
-      target.setPiece(current.getPiece());
-      current.setPiece(null);
+    } else if (highlight == Board.MOVE_HIGHLIGHT) {
+      gameBoard.movePiece(gameBoard.getActivePos(), pos);
       gameBoard.setActiveSquare(new Vector2(0, 0));
 
     } else {
@@ -0,0 +1,165 @@
+/**
+ * Scores Positions for the search. The score is in centipawns from the point of view of the side
+ * to move. It combines material, based on the point values reported by each GamePiece, with
+ * piece-square tables for the middlegame and the endgame, blended by how much material is left.
+ *
+ * Every piece's contribution depends only on its own square, so Position keeps the middlegame
+ * and endgame sums and the game phase up to date as pieces move, and evaluate only has to blend
+ * them.
+ *
+ * @author Eligh Alvarez
+ */
+public final class Evaluator {
+
+  // Centipawn value of each piece type, taken from GamePiece.getPoints()
+  public static final int[] PIECE_VALUES = new int[6];
+
+  // Phase weight of each piece type; all pieces on the board add up to MAX_PHASE
+  public static final int[] PHASE_WEIGHTS = {0, 1, 1, 2, 4, 0};
+  public static final int MAX_PHASE = 24;
+
+  // Signed middlegame and endgame score of each piece code on each square, material included
+  public static final int[][] MIDGAME = new int[12][64];
+  public static final int[][] ENDGAME = new int[12][64];
+
+  // Piece-square tables from white's point of view, written with the eighth row first
+  private static final int[] PAWN_TABLE = {
+      0, 0, 0, 0, 0, 0, 0, 0,
+      50, 50, 50, 50, 50, 50, 50, 50,
+      10, 10, 20, 30, 30, 20, 10, 10,
+      5, 5, 10, 25, 25, 10, 5, 5,
+      0, 0, 0, 20, 20, 0, 0, 0,
+      5, -5, -10, 0, 0, -10, -5, 5,
+      5, 10, 10, -20, -20, 10, 10, 5,
+      0, 0, 0, 0, 0, 0, 0, 0
+  };
+  private static final int[] KNIGHT_TABLE = {
+      -50, -40, -30, -30, -30, -30, -40, -50,
+      -40, -20, 0, 0, 0, 0, -20, -40,
+      -30, 0, 10, 15, 15, 10, 0, -30,
+      -30, 5, 15, 20, 20, 15, 5, -30,
+      -30, 0, 15, 20, 20, 15, 0, -30,
+      -30, 5, 10, 15, 15, 10, 5, -30,
+      -40, -20, 0, 5, 5, 0, -20, -40,
+      -50, -40, -30, -30, -30, -30, -40, -50
+  };
+  private static final int[] BISHOP_TABLE = {
+      -20, -10, -10, -10, -10, -10, -10, -20,
+      -10, 0, 0, 0, 0, 0, 0, -10,
+      -10, 0, 5, 10, 10, 5, 0, -10,
+      -10, 5, 5, 10, 10, 5, 5, -10,
+      -10, 0, 10, 10, 10, 10, 0, -10,
+      -10, 10, 10, 10, 10, 10, 10, -10,
+      -10, 5, 0, 0, 0, 0, 5, -10,
+      -20, -10, -10, -10, -10, -10, -10, -20
+  };
+  private static final int[] ROOK_TABLE = {
+      0, 0, 0, 0, 0, 0, 0, 0,
+      5, 10, 10, 10, 10, 10, 10, 5,
+      -5, 0, 0, 0, 0, 0, 0, -5,
+      -5, 0, 0, 0, 0, 0, 0, -5,
+      -5, 0, 0, 0, 0, 0, 0, -5,
+      -5, 0, 0, 0, 0, 0, 0, -5,
+      -5, 0, 0, 0, 0, 0, 0, -5,
+      0, 0, 0, 5, 5, 0, 0, 0
+  };
+  private static final int[] QUEEN_TABLE = {
+      -20, -10, -10, -5, -5, -10, -10, -20,
+      -10, 0, 0, 0, 0, 0, 0, -10,
+      -10, 0, 5, 5, 5, 5, 0, -10,
+      -5, 0, 5, 5, 5, 5, 0, -5,
+      0, 0, 5, 5, 5, 5, 0, -5,
+      -10, 5, 5, 5, 5, 5, 0, -10,
+      -10, 0, 5, 0, 0, 0, 0, -10,
+      -20, -10, -10, -5, -5, -10, -10, -20
+  };
+  private static final int[] KING_MIDGAME_TABLE = {
+      -30, -40, -40, -50, -50, -40, -40, -30,
+      -30, -40, -40, -50, -50, -40, -40, -30,
+      -30, -40, -40, -50, -50, -40, -40, -30,
+      -30, -40, -40, -50, -50, -40, -40, -30,
+      -20, -30, -30, -40, -40, -30, -30, -20,
+      -10, -20, -20, -20, -20, -20, -20, -10,
+      20, 20, 0, 0, 0, 0, 20, 20,
+      20, 30, 10, 0, 0, 10, 30, 20
+  };
+  private static final int[] KING_ENDGAME_TABLE = {
+      -50, -40, -30, -20, -20, -30, -40, -50,
+      -30, -20, -10, 0, 0, -10, -20, -30,
+      -30, -10, 20, 30, 30, 20, -10, -30,
+      -30, -10, 30, 40, 40, 30, -10, -30,
+      -30, -10, 30, 40, 40, 30, -10, -30,
+      -30, -10, 20, 30, 30, 20, -10, -30,
+      -30, -30, 0, 0, 0, 0, -30, -30,
+      -50, -30, -30, -30, -30, -30, -30, -50
+  };
+
+  static {
+    for (int type = Position.PAWN; type <= Position.KING; type++) {
+      PIECE_VALUES[type] = 100 * Board.createPiece(type).getPoints();
+    }
+
+    int[][] midgameTables = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE,
+        KING_MIDGAME_TABLE};
+    int[][] endgameTables = {PAWN_TABLE, KNIGHT_TABLE, BISHOP_TABLE, ROOK_TABLE, QUEEN_TABLE,
+        KING_ENDGAME_TABLE};
+    for (int type = Position.PAWN; type <= Position.KING; type++) {
+      // Both sides always have a King, so its material is left out
+      int material = type == Position.KING ? 0 : PIECE_VALUES[type];
+      for (int square = 0; square < 64; square++) {
+        int white = Position.pieceCode(Position.WHITE, type);
+        int black = Position.pieceCode(Position.BLACK, type);
+        // White reads the tables flipped vertically; black reads them as written
+        MIDGAME[white][square] = material + midgameTables[type][square ^ 56];
+        ENDGAME[white][square] = material + endgameTables[type][square ^ 56];
+        MIDGAME[black][square] = -(material + midgameTables[type][square]);
+        ENDGAME[black][square] = -(material + endgameTables[type][square]);
+      }
+    }
+  }
+
+  private Evaluator() {}
+
+  /**
+   * Returns the score of the provided Position from its incrementally updated sums.
+   * @param position the Position to evaluate
+   * @return the score in centipawns, positive when the side to move is ahead
+   */
+  public static int evaluate(Position position) {
+    int score = blend(position.getMidgameScore(), position.getEndgameScore(),
+        position.getPhase());
+    return position.getSideToMove() == Position.WHITE ? score : -score;
+  }
+
+  /**
+   * Returns the score of the provided Position computed from scratch, by visiting every square.
+   * @param position the Position to evaluate
+   * @return the score in centipawns, positive when the side to move is ahead
+   */
+  public static int evaluateFromScratch(Position position) {
+    int midgame = 0;
+    int endgame = 0;
+    int phase = 0;
+    for (int square = 0; square < 64; square++) {
+      int code = position.pieceAt(square);
+      if (code == Position.NO_PIECE) continue;
+      midgame += MIDGAME[code][square];
+      endgame += ENDGAME[code][square];
+      phase += PHASE_WEIGHTS[Position.typeOf(code)];
+    }
+    int score = blend(midgame, endgame, phase);
+    return position.getSideToMove() == Position.WHITE ? score : -score;
+  }
+
+  /**
+   * Blends a middlegame and an endgame score by the game phase.
+   * @param midgame the middlegame score from white's point of view
+   * @param endgame the endgame score from white's point of view
+   * @param phase the phase, from 0 (bare Kings) to MAX_PHASE (all pieces on the board)
+   * @return the blended score from white's point of view
+   */
+  private static int blend(int midgame, int endgame, int phase) {
+    phase = Math.min(phase, MAX_PHASE);
+    return (midgame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+  }
+}
@@ -0,0 +1,292 @@
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation, for example the starting position
+ * "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1".
+ *
+ * The castling field sets the moved-flags of the Kings and Rooks: a King is unmoved if its side
+ * has any castling right, and a Rook is unmoved if the right on its side is listed. Pawns on their
+ * second rank are unmoved and may push two squares. An en passant square is only accepted on the
+ * rank behind a Pawn of the side that just moved, with that square and the one the Pawn left
+ * empty. The halfmove clock and fullmove number may be left out, as in EPD.
+ *
+ * Parsing reads the text in place and puts each piece straight into the Position, and writing
+ * appends to a caller's StringBuilder, so neither allocates per square.
+ *
+ * @author Eligh Alvarez
+ */
+public final class Fen {
+
+  public static final String STARTING_POSITION =
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+  // Piece letters indexed by piece code: white in upper case, then black in lower case
+  private static final String PIECE_LETTERS = "PNBRQKpnbrqk";
+
+  // Castling letters indexed by the bit of their Position castling flag
+  private static final String CASTLING_LETTERS = "KQkq";
+
+  private Fen() {}
+
+  /**
+   * Creates a new Position from a FEN string.
+   * @param fen the FEN string
+   * @return the Position described by the string
+   * @throws IllegalArgumentException if the string is not valid FEN
+   */
+  public static Position parse(CharSequence fen) {
+    Position position = new Position();
+    parse(fen, position);
+    return position;
+  }
+
+  /**
+   * Replaces the contents of a Position with those described by a FEN string. The string is
+   * checked in full before the Position is touched, so an invalid string leaves it unchanged.
+   * @param fen the FEN string
+   * @param position the Position to load into
+   * @throws IllegalArgumentException if the string is not valid FEN
+   */
+  public static void parse(CharSequence fen, Position position) {
+    int end = fen.length();
+    int index = skipSpaces(fen, 0);
+    int placement = index;
+    index = readPlacement(fen, index, null, 0);
+
+    index = skipSpaces(fen, index);
+    if (index >= end || (fen.charAt(index) != 'w' && fen.charAt(index) != 'b')) {
+      throw error(fen, "side to move");
+    }
+    int sideToMove = fen.charAt(index++) == 'w' ? Position.WHITE : Position.BLACK;
+
+    index = skipSpaces(fen, index);
+    int rights = 0;
+    if (index < end && fen.charAt(index) == '-') {
+      index++;
+    } else {
+      for (; index < end && fen.charAt(index) != ' '; index++) {
+        int flag = CASTLING_LETTERS.indexOf(fen.charAt(index));
+        if (flag < 0) throw error(fen, "castling rights");
+        rights |= 1 << flag;
+      }
+    }
+
+    index = skipSpaces(fen, index);
+    int enPassant = Position.NO_SQUARE;
+    if (index < end && fen.charAt(index) == '-') {
+      index++;
+    } else {
+      if (index + 1 >= end) throw error(fen, "en passant square");
+      int file = fen.charAt(index) - 'a';
+      int rank = fen.charAt(index + 1) - '1';
+      // The square is behind a Pawn of the side that just moved, which pushed from beyond it
+      int behind = sideToMove == Position.WHITE ? 5 : 2;
+      int forward = sideToMove == Position.WHITE ? -8 : 8;
+      int pawn = Position.pieceCode(1 - sideToMove, Position.PAWN);
+      if (file < 0 || file > 7 || rank != behind) throw error(fen, "en passant square");
+      enPassant = rank * 8 + file;
+      if (pieceAt(fen, placement, enPassant + forward) != pawn
+          || pieceAt(fen, placement, enPassant) != Position.NO_PIECE
+          || pieceAt(fen, placement, enPassant - forward) != Position.NO_PIECE) {
+        throw error(fen, "en passant square");
+      }
+      index += 2;
+    }
+
+    int halfmoveClock = 0;
+    int fullmoveNumber = 1;
+    index = skipSpaces(fen, index);
+    if (index < end) {
+      int start = index;
+      for (halfmoveClock = 0; index < end && Character.isDigit(fen.charAt(index)); index++) {
+        halfmoveClock = halfmoveClock * 10 + fen.charAt(index) - '0';
+      }
+      if (index == start) throw error(fen, "halfmove clock");
+      index = skipSpaces(fen, index);
+      start = index;
+      for (fullmoveNumber = 0; index < end && Character.isDigit(fen.charAt(index)); index++) {
+        fullmoveNumber = fullmoveNumber * 10 + fen.charAt(index) - '0';
+      }
+      if (index == start || fullmoveNumber < 1) throw error(fen, "fullmove number");
+    }
+    if (skipSpaces(fen, index) != end) throw error(fen, "trailing text");
+
+    position.clear();
+    readPlacement(fen, placement, position, rights);
+    position.setSideToMove(sideToMove);
+    position.setEnPassant(enPassant);
+    position.setHalfmoveClock(halfmoveClock);
+    position.setFullmoveNumber(fullmoveNumber);
+  }
+
+  /**
+   * Returns the position part of an EPD line: its first four fields, without the operations that
+   * follow. A line that is a full FEN string, with clocks and no operations, is returned whole.
+   * @param epd the EPD line
+   * @return the text to parse the position from
+   */
+  public static String epdPosition(String epd) {
+    int index = 0;
+    int end = epd.length();
+    for (int field = 0; field < 4; field++) {
+      index = skipSpaces(epd, index);
+      while (index < end && epd.charAt(index) != ' ') index++;
+    }
+    int rest = skipSpaces(epd, index);
+    if (rest < end && Character.isDigit(epd.charAt(rest)) && epd.indexOf(';', rest) < 0) {
+      return epd.trim();
+    }
+    return epd.substring(0, index).trim();
+  }
+
+  /**
+   * Reads the piece placement field, either only checking it or also putting its pieces into a
+   * Position.
+   * @param fen the FEN string
+   * @param index the index of the first character of the field
+   * @param position the Position to put the pieces into, or null to only check the field
+   * @param rights the castling rights, used to decide which Kings and Rooks are unmoved
+   * @return the index just past the field
+   * @throws IllegalArgumentException if the field is not valid
+   */
+  private static int readPlacement(CharSequence fen, int index, Position position, int rights) {
+    int end = fen.length();
+    for (int rank = 7; rank >= 0; rank--) {
+      int file = 0;
+      for (; index < end && file <= 8; index++) {
+        char c = fen.charAt(index);
+        if (c == '/' || c == ' ') break;
+        if (c >= '1' && c <= '8') {
+          file += c - '0';
+          continue;
+        }
+        int code = PIECE_LETTERS.indexOf(c);
+        if (code < 0 || file > 7) throw error(fen, "piece placement");
+        if (position != null) {
+          int square = rank * 8 + file;
+          position.putPiece(code, square, !startsUnmoved(code, square, rights));
+        }
+        file++;
+      }
+      if (file != 8) throw error(fen, "piece placement");
+      if (rank > 0) {
+        if (index >= end || fen.charAt(index) != '/') throw error(fen, "piece placement");
+        index++;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Returns the piece on a square of a piece placement field that has already been checked.
+   * @param fen the FEN string
+   * @param index the index of the first character of the field
+   * @param square the square to look at
+   * @return the piece code, or Position.NO_PIECE if the square is empty
+   */
+  private static int pieceAt(CharSequence fen, int index, int square) {
+    // The field lists the squares from a8 to h8, then a7 to h7 and so on down to h1
+    int target = (7 - (square >>> 3)) * 8 + (square & 7);
+    for (int seen = 0; seen <= target; index++) {
+      char c = fen.charAt(index);
+      if (c == '/') continue;
+      if (c >= '1' && c <= '8') seen += c - '0';
+      else if (seen++ == target) return PIECE_LETTERS.indexOf(c);
+    }
+    return Position.NO_PIECE;
+  }
+
+  /**
+   * Determines whether a piece read from a FEN string should keep its moved-flag clear.
+   * @param code the piece code
+   * @param square the square of the piece
+   * @param rights the castling rights
+   * @return true if the piece has not moved
+   */
+  private static boolean startsUnmoved(int code, int square, int rights) {
+    int color = Position.colorOf(code);
+    int home = color == Position.WHITE ? 0 : 56;
+    int kingside = color == Position.WHITE ? Position.WHITE_KINGSIDE : Position.BLACK_KINGSIDE;
+    int queenside = color == Position.WHITE ? Position.WHITE_QUEENSIDE : Position.BLACK_QUEENSIDE;
+    switch (Position.typeOf(code)) {
+      case Position.PAWN:
+        return square >>> 3 == (color == Position.WHITE ? 1 : 6);
+      case Position.ROOK:
+        return (square == home + 7 && (rights & kingside) != 0)
+            || (square == home && (rights & queenside) != 0);
+      case Position.KING:
+        return square == home + 4 && (rights & (kingside | queenside)) != 0;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns the index of the first character at or after the provided index that is not a space.
+   * @param fen the FEN string
+   * @param index the index to start from
+   * @return the index of the next non-space character, or the length of the string
+   */
+  private static int skipSpaces(CharSequence fen, int index) {
+    while (index < fen.length() && fen.charAt(index) == ' ') index++;
+    return index;
+  }
+
+  /**
+   * Creates the exception thrown for an invalid FEN string.
+   * @param fen the FEN string
+   * @param field the name of the invalid field
+   * @return the exception to throw
+   */
+  private static IllegalArgumentException error(CharSequence fen, String field) {
+    return new IllegalArgumentException("Invalid " + field + " in FEN \"" + fen + "\"");
+  }
+
+  /**
+   * Returns the FEN string of a Position.
+   * @param position the Position to describe
+   * @return the FEN string
+   */
+  public static String toFen(Position position) {
+    return append(new StringBuilder(90), position).toString();
+  }
+
+  /**
+   * Appends the FEN string of a Position to a StringBuilder.
+   * @param out the StringBuilder to append to
+   * @param position the Position to describe
+   * @return the provided StringBuilder
+   */
+  public static StringBuilder append(StringBuilder out, Position position) {
+    for (int rank = 7; rank >= 0; rank--) {
+      int empty = 0;
+      for (int file = 0; file < 8; file++) {
+        int code = position.pieceAt(rank * 8 + file);
+        if (code == Position.NO_PIECE) {
+          empty++;
+          continue;
+        }
+        if (empty > 0) out.append((char) ('0' + empty));
+        empty = 0;
+        out.append(PIECE_LETTERS.charAt(code));
+      }
+      if (empty > 0) out.append((char) ('0' + empty));
+      if (rank > 0) out.append('/');
+    }
+
+    out.append(position.getSideToMove() == Position.WHITE ? " w " : " b ");
+    int rights = position.castlingRights();
+    if (rights == 0) out.append('-');
+    for (int flag = 0; flag < 4; flag++) {
+      if ((rights & (1 << flag)) != 0) out.append(CASTLING_LETTERS.charAt(flag));
+    }
+
+    out.append(' ');
+    int enPassant = position.getEnPassant();
+    if (enPassant == Position.NO_SQUARE) {
+      out.append('-');
+    } else {
+      out.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >>> 3)));
+    }
+    return out.append(' ').append(position.getHalfmoveClock())
+        .append(' ').append(position.getFullmoveNumber());
+  }
+}
@@ -8,9 +8,41 @@ import java.util.ArrayList;
 abstract class GamePiece {
 
   abstract public int getPoints();
-  abstract public ArrayList<Vector2> getMoves(Board gameBoard);
-  abstract public ArrayList<Vector2> getAttacks(Board gameBoard);
-  abstract public String getColor();
+  abstract public ArrayList<Vector2> getMoves(Board gameBoard, Vector2 currPos);
+  abstract public ArrayList<Vector2> getAttacks(Board gameBoard, Vector2 currPos);
+  abstract public int getSide();
   abstract public void move(Vector2 pos);
   abstract public GamePiece copy();
-}
\ No newline at end of file
+
+  /**
+   * Returns a list of valid moves for this piece, assuming it is at the active position.
+   * @param gameBoard The Board containing this piece.
+   * @return A valid list of moves for this piece.
+   */
+  public ArrayList<Vector2> getMoves(Board gameBoard) {
+    return getMoves(gameBoard, gameBoard.getActivePos());
+  }
+
+  /**
+   * Returns a list of valid attacks for this piece, assuming it is at the active position.
+   * @param gameBoard The Board containing this piece.
+   * @return A valid list of attacks for this piece.
+   */
+  public ArrayList<Vector2> getAttacks(Board gameBoard) {
+    return getAttacks(gameBoard, gameBoard.getActivePos());
+  }
+
+  /**
+   * Adds the position of every square in a bitboard to a list of positions.
+   * @param positions The list to add to.
+   * @param squares The bitboard of squares to add.
+   * @return the provided list
+   */
+  protected static ArrayList<Vector2> addPositions(ArrayList<Vector2> positions, long squares) {
+    while (squares != 0) {
+      positions.add(Board.toPos(Long.numberOfTrailingZeros(squares)));
+      squares &= squares - 1;
+    }
+    return positions;
+  }
+}
@@ -8,27 +8,18 @@ import java.util.ArrayList;
 public class King extends GamePiece {
 
   private static final int POINT_VALUE = 999;
-  private static final Vector2[] VALID_MOVES = {
-      new Vector2(-1, 1),
-      new Vector2(0, 1),
-      new Vector2(1, 1),
-      new Vector2(-1, 0),
-      new Vector2(1, 0),
-      new Vector2(-1, -1),
-      new Vector2(0, -1),
-      new Vector2(1, -1)
-  };
 
-  private String pieceColor;
+  private byte side;
   private boolean hasMoved;
   private Vector2 currPos;
 
   /**
-   * Creates a new King of the specified ASCII color.
+   * Creates a new King of the specified side.
+   * @param side Position.WHITE or Position.BLACK
    */
-  public King(String pieceColor) {
+  public King(int side) {
     this.hasMoved = false;
-    this.pieceColor = pieceColor;
+    this.side = (byte) side;
     this.currPos = new Vector2(-1, -1);
   }
 
@@ -43,53 +34,34 @@ public class King extends GamePiece {
   /**
    * Returns a list of valid moves for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of moves for this piece.
    */
-  public ArrayList<Vector2> getMoves(Board gameBoard) {
-    ArrayList<Vector2> moves = new ArrayList<>();
-    Vector2 currPos = gameBoard.getActivePos();
-    Vector2 tempMove;
-
-    for (int i = 0; i < 8; i++) {
-      tempMove = new Vector2(currPos.getX() + VALID_MOVES[i].getX(),
-                             currPos.getY() + VALID_MOVES[i].getY());
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      }
-    }
-
-    return moves;
+  public ArrayList<Vector2> getMoves(Board gameBoard, Vector2 currPos) {
+    long targets = Bitboards.KING_ATTACKS[Board.toSquare(currPos)]
+        & ~gameBoard.getPosition().occupied();
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
    * Returns a list of valid attacks for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of attacks for this piece.
    */
-  public ArrayList<Vector2> getAttacks(Board gameBoard) {
-    ArrayList<Vector2> attacks = new ArrayList<>();
-    Vector2 currPos = gameBoard.getActivePos();
-    Vector2 tempAttack;
-
-    for (int i = 0; i < 8; i++) {
-      tempAttack = new Vector2(currPos.getX() + VALID_MOVES[i].getX(),
-          currPos.getY() + VALID_MOVES[i].getY());
-      if (Board.posInBounds(tempAttack)
-          && !gameBoard.posEmpty(tempAttack)
-          && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-        attacks.add(tempAttack);
-      }
-    }
-
-    return attacks;
+  public ArrayList<Vector2> getAttacks(Board gameBoard, Vector2 currPos) {
+    int enemy = 1 - side;
+    long targets = Bitboards.KING_ATTACKS[Board.toSquare(currPos)]
+        & gameBoard.getPosition().occupancy(enemy);
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
-   * Returns the ASCII color of this piece.
-   * @return the ASCII color of this piece.
+   * Returns the side this piece plays for.
+   * @return Position.WHITE or Position.BLACK
    */
-  public String getColor() {
-    return pieceColor;
+  public int getSide() {
+    return side;
   }
 
   /**
@@ -97,7 +69,7 @@ public class King extends GamePiece {
    * @return a String representation of this piece.
    */
   public String toString() {
-    return pieceColor + "K" + Chess.DEFAULT_COLOR;
+    return BoardRenderer.sideColor(side) + "K" + Chess.DEFAULT_COLOR;
   }
 
   /**
@@ -118,7 +90,7 @@ public class King extends GamePiece {
    * @return a duplicate copy of this piece.
    */
   public GamePiece copy() {
-    King copy = new King(this.pieceColor);
+    King copy = new King(this.side);
     copy.currPos = this.currPos.deepCopy();
     copy.hasMoved = this.hasMoved;
     return copy;
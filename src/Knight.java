@@ -8,24 +8,15 @@ import java.util.ArrayList;
 public class Knight extends GamePiece {
 
   private static final int POINT_VALUE = 3;
-  private static final Vector2[] VALID_MOVES = {
-      new Vector2(1, 2),
-      new Vector2(2, 1),
-      new Vector2(2, -1),
-      new Vector2(1, -2),
-      new Vector2(-1, -2),
-      new Vector2(-2, -1),
-      new Vector2(-2, 1),
-      new Vector2(-1, 2)
-  };
 
-  private String pieceColor;
+  private byte side;
 
   /**
-   * Creates a new Knight of the specified ASCII color.
+   * Creates a new Knight of the specified side.
+   * @param side Position.WHITE or Position.BLACK
    */
-  public Knight(String pieceColor) {
-    this.pieceColor = pieceColor;
+  public Knight(int side) {
+    this.side = (byte) side;
   }
 
   /**
@@ -39,53 +30,34 @@ public class Knight extends GamePiece {
   /**
    * Returns a list of valid moves for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of moves for this piece.
    */
-  public ArrayList<Vector2> getMoves(Board gameBoard) {
-    ArrayList<Vector2> moves = new ArrayList<>();
-    Vector2 currPos = gameBoard.getActivePos();
-    Vector2 tempMove;
-
-    for (int i = 0; i < 8; i++) {
-      tempMove = new Vector2(currPos.getX() + VALID_MOVES[i].getX(),
-                             currPos.getY() + VALID_MOVES[i].getY());
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      }
-    }
-
-    return moves;
+  public ArrayList<Vector2> getMoves(Board gameBoard, Vector2 currPos) {
+    long targets = Bitboards.KNIGHT_ATTACKS[Board.toSquare(currPos)]
+        & ~gameBoard.getPosition().occupied();
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
    * Returns a list of valid attacks for this piece in.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of attacks for this piece.
    */
-  public ArrayList<Vector2> getAttacks(Board gameBoard) {
-    ArrayList<Vector2> attacks = new ArrayList<>();
-    Vector2 currPos = gameBoard.getActivePos();
-    Vector2 tempAttack;
-
-    for (int i = 0; i < 8; i++) {
-      tempAttack = new Vector2(currPos.getX() + VALID_MOVES[i].getX(),
-          currPos.getY() + VALID_MOVES[i].getY());
-      if (Board.posInBounds(tempAttack)
-          && !gameBoard.posEmpty(tempAttack)
-          && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-        attacks.add(tempAttack);
-      }
-    }
-
-    return attacks;
+  public ArrayList<Vector2> getAttacks(Board gameBoard, Vector2 currPos) {
+    int enemy = 1 - side;
+    long targets = Bitboards.KNIGHT_ATTACKS[Board.toSquare(currPos)]
+        & gameBoard.getPosition().occupancy(enemy);
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
-   * Returns the ASCII color of this piece.
-   * @return the ASCII color of this piece.
+   * Returns the side this piece plays for.
+   * @return Position.WHITE or Position.BLACK
    */
-  public String getColor() {
-    return pieceColor;
+  public int getSide() {
+    return side;
   }
 
   /**
@@ -93,7 +65,7 @@ public class Knight extends GamePiece {
    * @return a String representation of this piece.
    */
   public String toString() {
-    return pieceColor + "N" + Chess.DEFAULT_COLOR;
+    return BoardRenderer.sideColor(side) + "N" + Chess.DEFAULT_COLOR;
   }
 
   /**
@@ -107,7 +79,7 @@ public class Knight extends GamePiece {
    * @return a duplicate copy of this piece.
    */
   public GamePiece copy() {
-    Knight copy = new Knight(this.pieceColor);
+    Knight copy = new Knight(this.side);
     return copy;
   }
 }
\ No newline at end of file
@@ -0,0 +1,548 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plays a match between two engine settings, many games at a time, to measure whether a change
+ * makes the engine stronger. Each opening is played twice with colors swapped. Games run in a
+ * fixed pool of threads, with one Board per game and one Search per engine per thread, so every
+ * core stays busy. Finished games are handed to a single output thread that writes them as PGN and
+ * prints the running score, so no game waits on the console or the disk.
+ *
+ * Games end in checkmate or stalemate, by the fifty-move rule, threefold repetition, insufficient
+ * material, a flag fall, or are adjudicated drawn after a maximum number of plies. Clocks follow a
+ * base-plus-increment time control; without one each move is limited by depth or nodes instead.
+ *
+ * After every game the score, Elo difference, error margin and likelihood of superiority of the
+ * first engine are printed. With "sprt elo0 elo1" the match also runs a sequential probability
+ * ratio test and ends as soon as it is decided.
+ *
+ * @author Eligh Alvarez
+ */
+public class MatchRunner {
+
+  public static final int DEFAULT_GAMES = 100;
+  public static final int DEFAULT_MAX_PLIES = 600;
+  public static final long DEFAULT_BASE_TIME = 10000;
+  public static final long DEFAULT_INCREMENT = 100;
+
+  private final Engine[] engines;
+  private final List<String> openings;
+  private final int games;
+  private final int concurrency;
+  private final long baseTime;
+  private final long increment;
+  private final int maxPlies;
+  private final MatchStatistics statistics;
+  private final ThreadLocal<Player[]> players;
+  private ExecutorService output;
+  private Writer pgn;
+  private PrintStream console;
+  private double[] sprt;
+  private volatile boolean decided;
+
+  /**
+   * The settings of one engine in the match.
+   */
+  public static final class Engine {
+
+    private String name;
+    private int depth = Search.MAX_PLY - 1;
+    private long nodes;
+    private int megabytes = TranspositionTable.DEFAULT_MEGABYTES;
+    private int threads = 1;
+
+    /**
+     * Creates the settings of an engine that searches without limits other than the clock.
+     * @param name the name written to the PGN tags
+     */
+    public Engine(String name) {
+      this.name = name;
+    }
+
+    /**
+     * Changes one setting.
+     * @param setting "name", "depth", "nodes", "hash" or "threads"
+     * @param value the new value
+     * @throws IllegalArgumentException if the setting is unknown or the value is not valid
+     */
+    public void set(String setting, String value) {
+      switch (setting) {
+        case "name": name = value; break;
+        case "depth": depth = Math.max(1, Math.min(Integer.parseInt(value), Search.MAX_PLY - 1));
+          break;
+        case "nodes": nodes = Long.parseLong(value); break;
+        case "hash": megabytes = Integer.parseInt(value); break;
+        case "threads": threads = Integer.parseInt(value); break;
+        default: throw new IllegalArgumentException("Unknown setting " + setting);
+      }
+    }
+
+    /**
+     * Returns the name of this engine, as used in the PGN and the progress lines.
+     * @return the name
+     */
+    public String getName() {
+      return name;
+    }
+  }
+
+  /**
+   * An engine's Search and TranspositionTable on one worker thread.
+   */
+  private static final class Player {
+
+    private final TranspositionTable table;
+    private final Search search;
+
+    private Player(Engine engine) {
+      table = new TranspositionTable(engine.megabytes);
+      search = new Search(table);
+      search.setOutput(null);
+      search.setThreads(engine.threads);
+    }
+  }
+
+  /**
+   * Plays a match and prints the results.
+   * Usage: java MatchRunner [games n] [concurrency c] [openings file] [pgn file] [tc base+inc]
+   * [maxplies n] [sprt elo0 elo1 [alpha beta]] [depth d] [nodes n] [hash mb] [threads t]
+   * [name s], where engine settings apply to both engines, or to one with an "a." or "b."
+   * prefix such as "b.depth 6". The time control is in seconds, and "tc none" plays without
+   * clocks.
+   * @param args the match settings
+   */
+  public static void main(String[] args) {
+    Engine first = new Engine("A");
+    Engine second = new Engine("B");
+    int games = DEFAULT_GAMES;
+    int concurrency = Runtime.getRuntime().availableProcessors();
+    String openingFile = null;
+    String pgnFile = null;
+    long baseTime = -1;
+    long increment = 0;
+    int maxPlies = DEFAULT_MAX_PLIES;
+    double[] sprt = null;
+    boolean limited = false;
+
+    try {
+      for (int i = 0; i < args.length; i += 2) {
+        if (i + 1 >= args.length) {
+          throw new IllegalArgumentException("Missing value for " + args[i]);
+        }
+        String value = args[i + 1];
+        switch (args[i]) {
+          case "games": games = Integer.parseInt(value); break;
+          case "concurrency": concurrency = Integer.parseInt(value); break;
+          case "openings": openingFile = value; break;
+          case "pgn": pgnFile = value; break;
+          case "maxplies": maxPlies = Integer.parseInt(value); break;
+          case "tc":
+            if (value.equals("none")) {
+              baseTime = 0;
+            } else {
+              String[] parts = value.split("\\+");
+              baseTime = Math.round(Double.parseDouble(parts[0]) * 1000);
+              increment = parts.length > 1 ? Math.round(Double.parseDouble(parts[1]) * 1000) : 0;
+            }
+            break;
+          case "sprt":
+            sprt = new double[] {Double.parseDouble(value), Double.parseDouble(args[i + 2]),
+                0.05, 0.05};
+            i++;
+            if (i + 2 < args.length && isNumber(args[i + 2])) {
+              sprt[2] = Double.parseDouble(args[i + 2]);
+              sprt[3] = Double.parseDouble(args[i + 3]);
+              i += 2;
+            }
+            break;
+          default:
+            String setting = args[i];
+            if (setting.startsWith("a.")) {
+              first.set(setting.substring(2), value);
+            } else if (setting.startsWith("b.")) {
+              second.set(setting.substring(2), value);
+            } else {
+              first.set(setting, value);
+              second.set(setting, value);
+            }
+            limited |= setting.endsWith("depth") || setting.endsWith("nodes");
+        }
+      }
+    } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+      System.out.println("Match settings improperly formatted: " + e.getMessage());
+      return;
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+      return;
+    }
+    if (baseTime < 0) {
+      baseTime = limited ? 0 : DEFAULT_BASE_TIME;
+      increment = limited ? 0 : DEFAULT_INCREMENT;
+    }
+
+    try {
+      List<String> openings = openingFile == null
+          ? List.of(Fen.STARTING_POSITION) : readOpenings(openingFile);
+      MatchRunner runner = new MatchRunner(first, second, openings, games, concurrency,
+          baseTime, increment, maxPlies);
+      if (sprt != null) runner.setSprt(sprt[0], sprt[1], sprt[2], sprt[3]);
+      if (pgnFile == null) {
+        runner.run(null, System.out);
+      } else {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(pgnFile), StandardCharsets.UTF_8)) {
+          runner.run(writer, System.out);
+        }
+      }
+    } catch (IOException e) {
+      System.out.println("Could not play the match: " + e.getMessage());
+    } catch (IllegalArgumentException e) {
+      System.out.println(e.getMessage());
+    }
+  }
+
+  /**
+   * Creates a new match.
+   * @param first the settings of the first engine, whose results are reported
+   * @param second the settings of the second engine
+   * @param openings the FEN strings to start games from, each played with both colors
+   * @param games the number of games to play
+   * @param concurrency the number of games played at once
+   * @param baseTime the starting time on each clock in milliseconds, or 0 to play without clocks
+   * @param increment the time added to a clock after each move in milliseconds
+   * @param maxPlies the number of plies after which a game is adjudicated drawn
+   * @throws IllegalArgumentException if a setting is out of range or an opening is not valid FEN
+   */
+  public MatchRunner(Engine first, Engine second, List<String> openings, int games,
+      int concurrency, long baseTime, long increment, int maxPlies) {
+    if (openings.isEmpty()) throw new IllegalArgumentException("There are no openings");
+    if (games < 1 || concurrency < 1 || maxPlies < 1 || baseTime < 0 || increment < 0) {
+      throw new IllegalArgumentException("Match settings out of range");
+    }
+    for (String opening : openings) Fen.parse(opening);
+    engines = new Engine[] {first, second};
+    this.openings = openings;
+    this.games = games;
+    this.concurrency = concurrency;
+    this.baseTime = baseTime;
+    this.increment = increment;
+    this.maxPlies = maxPlies;
+    statistics = new MatchStatistics();
+    players = ThreadLocal.withInitial(() -> new Player[] {new Player(first), new Player(second)});
+  }
+
+  /**
+   * Makes the match end as soon as a sequential probability ratio test is decided.
+   * @param elo0 the Elo difference of the null hypothesis
+   * @param elo1 the Elo difference of the alternative hypothesis
+   * @param alpha the false positive rate
+   * @param beta the false negative rate
+   */
+  public void setSprt(double elo0, double elo1, double alpha, double beta) {
+    sprt = new double[] {elo0, elo1, alpha, beta};
+  }
+
+  /**
+   * Returns the results of the first engine so far.
+   * @return the match statistics
+   */
+  public MatchStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * Plays the match, returning once every game has finished and been written.
+   * @param pgn where finished games are written as PGN, or null to not write them
+   * @param console where progress and results are printed
+   * @throws IOException if the games could not be written
+   */
+  public void run(Writer pgn, PrintStream console) throws IOException {
+    this.pgn = pgn;
+    this.console = console;
+    decided = false;
+    output = Executors.newSingleThreadExecutor();
+    ExecutorService pool = Executors.newFixedThreadPool(concurrency);
+    IOException[] failure = new IOException[1];
+    output.execute(() -> console.println("Playing " + games + " games of " + engines[0].name
+        + " vs " + engines[1].name + ", " + concurrency + " at a time"));
+    for (int i = 0; i < games; i++) {
+      int round = i;
+      pool.execute(() -> {
+        if (!decided) playGame(round, failure);
+      });
+    }
+    pool.shutdown();
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      output.execute(() -> console.println("Finished match. " + statistics));
+      output.shutdown();
+      output.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      output.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    if (failure[0] != null) throw failure[0];
+  }
+
+  /**
+   * Plays one game and hands it to the output thread. Runs on a pool thread.
+   * @param round the index of the game, which picks its opening and colors
+   * @param failure where the output thread stores an error writing the PGN
+   */
+  private void playGame(int round, IOException[] failure) {
+    String opening = openings.get(round / 2 % openings.size());
+    int firstColor = round % 2 == 0 ? Position.WHITE : Position.BLACK;
+    Player[] sides = players.get();
+    Player[] byColor = new Player[2];
+    Engine[] engineByColor = new Engine[2];
+    byColor[firstColor] = sides[0];
+    byColor[1 - firstColor] = sides[1];
+    engineByColor[firstColor] = engines[0];
+    engineByColor[1 - firstColor] = engines[1];
+    for (Player player : sides) player.table.clear();
+
+    Board board = new Board();
+    board.loadFen(opening);
+    Position position = board.getPosition();
+    int startNumber = position.getFullmoveNumber();
+    int startSide = position.getSideToMove();
+    long[] clock = {baseTime, baseTime};
+    long[] hashes = new long[maxPlies + 1];
+    int[] moves = new int[MoveGenerator.MAX_MOVES];
+    List<String> sans = new ArrayList<>();
+    String result = null;
+    String reason = null;
+
+    for (int ply = 0; result == null; ply++) {
+      int side = position.getSideToMove();
+      String color = side == Position.WHITE ? "White" : "Black";
+      String winner = side == Position.WHITE ? "0-1" : "1-0";
+      hashes[ply] = position.getHash();
+      if (MoveGenerator.generateLegal(position, moves, 0) == 0) {
+        boolean mated = position.inCheck(side);
+        result = mated ? winner : "1/2-1/2";
+        reason = mated ? (side == Position.WHITE ? "Black" : "White") + " mates" : "Stalemate";
+      } else if (position.getHalfmoveClock() >= 100) {
+        result = "1/2-1/2";
+        reason = "Draw by fifty-move rule";
+      } else if (isThreefold(hashes, ply, position.getHalfmoveClock())) {
+        result = "1/2-1/2";
+        reason = "Draw by threefold repetition";
+      } else if (isInsufficient(position)) {
+        result = "1/2-1/2";
+        reason = "Draw by insufficient material";
+      } else if (ply >= maxPlies) {
+        result = "1/2-1/2";
+        reason = "Draw by adjudication";
+      } else {
+        Engine engine = engineByColor[side];
+        long time = baseTime > 0 ? Uci.allocateTime(clock[side], increment, 0) : 0;
+        long start = System.currentTimeMillis();
+        int move = byColor[side].search.search(board, engine.depth, time, engine.nodes);
+        if (baseTime > 0) {
+          clock[side] -= System.currentTimeMillis() - start;
+          if (clock[side] < 0) {
+            result = winner;
+            reason = color + " loses on time";
+            break;
+          }
+          clock[side] += increment;
+        }
+        sans.add(Move.toSan(position, move, moves));
+        board.movePiece(Board.toPos(Move.from(move)), Board.toPos(Move.to(move)));
+      }
+    }
+
+    double score = result.equals("1/2-1/2") ? 0.5
+        : (result.equals("1-0") == (firstColor == Position.WHITE)) ? 1 : 0;
+    statistics.add(score);
+    String game = formatGame(round, opening, engineByColor, startSide, startNumber, sans, result,
+        reason);
+    String progress = "Finished game " + (round + 1) + " (" + engineByColor[0].name + " vs "
+        + engineByColor[1].name + "): " + result + " {" + reason + "}\n" + statistics;
+    String conclusion = checkSprt();
+    output.execute(() -> {
+      try {
+        if (pgn != null) pgn.write(game);
+      } catch (IOException e) {
+        if (failure[0] == null) failure[0] = e;
+        decided = true;
+      }
+      console.println(progress);
+      if (conclusion != null) console.println(conclusion);
+    });
+  }
+
+  /**
+   * Updates the SPRT after a game and ends the match if it is decided.
+   * @return the line announcing the decision, or null if the test goes on
+   */
+  private String checkSprt() {
+    if (sprt == null) return null;
+    double llr;
+    boolean newlyDecided;
+    synchronized (statistics) {
+      llr = statistics.llr(sprt[0], sprt[1]);
+      double lower = MatchStatistics.lowerBound(sprt[2], sprt[3]);
+      double upper = MatchStatistics.upperBound(sprt[2], sprt[3]);
+      String line = String.format("SPRT: llr %.2f (%.2f, %.2f) [%.1f, %.1f]", llr, lower, upper,
+          sprt[0], sprt[1]);
+      newlyDecided = !decided && (llr <= lower || llr >= upper);
+      if (!newlyDecided) return line;
+      decided = true;
+    }
+    return String.format("SPRT: llr %.2f, %s accepted", llr, llr > 0 ? "H1" : "H0");
+  }
+
+  /**
+   * Determines whether the current position has occurred twice before with the same side to move
+   * since the last capture or Pawn move.
+   * @param hashes the hash of the position before each ply of the game
+   * @param ply the current ply
+   * @param halfmoveClock the plies since the last capture or Pawn move
+   * @return true if the position has occurred three times
+   */
+  private static boolean isThreefold(long[] hashes, int ply, int halfmoveClock) {
+    int repeats = 0;
+    for (int i = ply - 4; i >= Math.max(0, ply - halfmoveClock); i -= 2) {
+      if (hashes[i] == hashes[ply] && ++repeats == 2) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Determines whether neither side has enough material left to mate: only the Kings and at most
+   * one Knight or Bishop remain.
+   * @param position the Position to check
+   * @return true if neither side can mate
+   */
+  private static boolean isInsufficient(Position position) {
+    long minors = 0;
+    for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+      if ((position.pieces(color, Position.PAWN) | position.pieces(color, Position.ROOK)
+          | position.pieces(color, Position.QUEEN)) != 0) {
+        return false;
+      }
+      minors |= position.pieces(color, Position.KNIGHT) | position.pieces(color, Position.BISHOP);
+    }
+    return Long.bitCount(minors) <= 1;
+  }
+
+  /**
+   * Writes a finished game as PGN.
+   * @param round the index of the game
+   * @param opening the FEN string the game started from
+   * @param engineByColor the engines playing White and Black
+   * @param startSide the side to move in the opening
+   * @param startNumber the fullmove number of the opening
+   * @param sans the moves played, in Standard Algebraic Notation
+   * @param result the game termination marker
+   * @param reason why the game ended
+   * @return the game as PGN text
+   */
+  private String formatGame(int round, String opening, Engine[] engineByColor, int startSide,
+      int startNumber, List<String> sans, String result, String reason) {
+    StringBuilder text = new StringBuilder(1024);
+    tag(text, "Event", "Match " + engines[0].name + " vs " + engines[1].name);
+    tag(text, "Site", "?");
+    tag(text, "Date", LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd")));
+    tag(text, "Round", String.valueOf(round + 1));
+    tag(text, "White", engineByColor[Position.WHITE].name);
+    tag(text, "Black", engineByColor[Position.BLACK].name);
+    tag(text, "Result", result);
+    if (!opening.equals(Fen.STARTING_POSITION)) {
+      tag(text, "SetUp", "1");
+      tag(text, "FEN", opening);
+    }
+    tag(text, "PlyCount", String.valueOf(sans.size()));
+    tag(text, "TimeControl", baseTime == 0 ? "-"
+        : baseTime / 1000.0 + (increment > 0 ? "+" + increment / 1000.0 : ""));
+    text.append('\n');
+
+    int lineStart = text.length();
+    for (int i = 0; i < sans.size(); i++) {
+      int side = (startSide + i) & 1;
+      int number = startNumber + (startSide + i) / 2;
+      String token = side == Position.WHITE ? number + ". " + sans.get(i)
+          : i == 0 ? number + "... " + sans.get(i) : sans.get(i);
+      lineStart = wrap(text, lineStart, token);
+    }
+    lineStart = wrap(text, lineStart, "{" + reason + "}");
+    wrap(text, lineStart, result);
+    return text.append("\n\n").toString();
+  }
+
+  /**
+   * Appends a token of move text, starting a new line before it would pass 80 characters.
+   * @param text the PGN text
+   * @param lineStart the index where the current line starts
+   * @param token the token to append
+   * @return the index where the current line now starts
+   */
+  private static int wrap(StringBuilder text, int lineStart, String token) {
+    if (text.length() > lineStart) {
+      if (text.length() - lineStart + 1 + token.length() > 80) {
+        text.append('\n');
+        lineStart = text.length();
+      } else {
+        text.append(' ');
+      }
+    }
+    text.append(token);
+    return lineStart;
+  }
+
+  /**
+   * Appends a tag pair to PGN text.
+   * @param text the PGN text
+   * @param name the name of the tag
+   * @param value the value of the tag
+   */
+  private static void tag(StringBuilder text, String name, String value) {
+    text.append('[').append(name).append(" \"")
+        .append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+  }
+
+  /**
+   * Reads the openings of an EPD or FEN file, one position per line, skipping blank lines.
+   * @param file the path of the file
+   * @return the position part of each line
+   * @throws IOException if the file cannot be read
+   */
+  private static List<String> readOpenings(String file) throws IOException {
+    List<String> openings = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(Paths.get(file),
+        StandardCharsets.ISO_8859_1)) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        if (!line.trim().isEmpty()) openings.add(Fen.epdPosition(line));
+      }
+    }
+    return openings;
+  }
+
+  /**
+   * Determines whether a command-line argument is a number.
+   * @param text the argument
+   * @return true if it can be read as a number
+   */
+  private static boolean isNumber(String text) {
+    try {
+      Double.parseDouble(text);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,173 @@
+/**
+ * Keeps the wins, draws and losses of one engine against another and estimates from them the Elo
+ * difference, its 95% error margin, the likelihood of superiority, and the log-likelihood ratio of
+ * a sequential probability ratio test (SPRT).
+ *
+ * The SPRT uses the normal approximation to the trinomial game results: it tests whether the
+ * engine is elo1 stronger rather than elo0 stronger, and is decided once the ratio leaves the
+ * bounds set by the chosen false positive (alpha) and false negative (beta) rates.
+ *
+ * @author Eligh Alvarez
+ */
+public class MatchStatistics {
+
+  private int wins;
+  private int draws;
+  private int losses;
+
+  /**
+   * Records the result of one game.
+   * @param score the engine's score: 1 for a win, 0.5 for a draw, 0 for a loss
+   */
+  public synchronized void add(double score) {
+    if (score > 0.5) wins++;
+    else if (score < 0.5) losses++;
+    else draws++;
+  }
+
+  public synchronized int getWins() {
+    return wins;
+  }
+
+  public synchronized int getDraws() {
+    return draws;
+  }
+
+  public synchronized int getLosses() {
+    return losses;
+  }
+
+  /**
+   * Returns the number of games recorded.
+   * @return the number of games
+   */
+  public synchronized int getGames() {
+    return wins + draws + losses;
+  }
+
+  /**
+   * Returns the engine's average score per game.
+   * @return the score from 0 to 1, or 0.5 before any game
+   */
+  public synchronized double score() {
+    int games = wins + draws + losses;
+    return games == 0 ? 0.5 : (wins + draws * 0.5) / games;
+  }
+
+  /**
+   * Returns the Elo difference matching the engine's score.
+   * @return the estimated Elo difference
+   */
+  public synchronized double elo() {
+    return toElo(score());
+  }
+
+  /**
+   * Returns the half width of the 95% confidence interval of the Elo difference.
+   * @return the error margin in Elo
+   */
+  public synchronized double eloError() {
+    int games = wins + draws + losses;
+    if (games == 0) return Double.POSITIVE_INFINITY;
+    double deviation = 1.959964 * Math.sqrt(variance() / games);
+    return (toElo(score() + deviation) - toElo(score() - deviation)) / 2;
+  }
+
+  /**
+   * Returns the likelihood of superiority: the probability that the engine is stronger, judged
+   * from its wins and losses.
+   * @return the probability from 0 to 1
+   */
+  public synchronized double los() {
+    if (wins + losses == 0) return 0.5;
+    return 0.5 * (1 + erf((wins - losses) / Math.sqrt(2.0 * (wins + losses))));
+  }
+
+  /**
+   * Returns the log-likelihood ratio of the engine being elo1 rather than elo0 stronger.
+   * @param elo0 the Elo difference of the null hypothesis
+   * @param elo1 the Elo difference of the alternative hypothesis
+   * @return the log-likelihood ratio, or 0 while the results do not vary
+   */
+  public synchronized double llr(double elo0, double elo1) {
+    int games = wins + draws + losses;
+    double variance = variance();
+    if (games == 0 || variance == 0) return 0;
+    double score0 = toScore(elo0);
+    double score1 = toScore(elo1);
+    return games * (score1 - score0) * (2 * score() - score0 - score1) / (2 * variance);
+  }
+
+  /**
+   * Returns the per-game variance of the engine's score.
+   * @return the variance
+   */
+  private double variance() {
+    int games = wins + draws + losses;
+    double score = score();
+    return (wins * (1 - score) * (1 - score) + draws * (0.5 - score) * (0.5 - score)
+        + losses * score * score) / games;
+  }
+
+  /**
+   * Returns the log-likelihood ratio below which an SPRT accepts elo0.
+   * @param alpha the false positive rate
+   * @param beta the false negative rate
+   * @return the lower bound
+   */
+  public static double lowerBound(double alpha, double beta) {
+    return Math.log(beta / (1 - alpha));
+  }
+
+  /**
+   * Returns the log-likelihood ratio above which an SPRT accepts elo1.
+   * @param alpha the false positive rate
+   * @param beta the false negative rate
+   * @return the upper bound
+   */
+  public static double upperBound(double alpha, double beta) {
+    return Math.log((1 - beta) / alpha);
+  }
+
+  /**
+   * Converts a score to an Elo difference with the logistic model.
+   * @param score the score from 0 to 1
+   * @return the Elo difference, infinite for a score of 0 or 1
+   */
+  public static double toElo(double score) {
+    if (score <= 0) return Double.NEGATIVE_INFINITY;
+    if (score >= 1) return Double.POSITIVE_INFINITY;
+    return -400 * Math.log10(1 / score - 1);
+  }
+
+  /**
+   * Converts an Elo difference to the expected score with the logistic model.
+   * @param elo the Elo difference
+   * @return the expected score from 0 to 1
+   */
+  public static double toScore(double elo) {
+    return 1 / (1 + Math.pow(10, -elo / 400));
+  }
+
+  /**
+   * Approximates the error function, to within 1.5e-7.
+   * @param x the argument
+   * @return erf(x)
+   */
+  private static double erf(double x) {
+    double t = 1 / (1 + 0.3275911 * Math.abs(x));
+    double polynomial = t * (0.254829592 + t * (-0.284496736 + t * (1.421413741
+        + t * (-1.453152027 + t * 1.061405429))));
+    double value = 1 - polynomial * Math.exp(-x * x);
+    return x < 0 ? -value : value;
+  }
+
+  /**
+   * Returns a summary such as "Score: 120 - 100 - 80 [0.533] 300, Elo: 23.2 +/- 32.1, LOS: 91.5%".
+   * @return the summary
+   */
+  public synchronized String toString() {
+    return String.format("Score: %d - %d - %d [%.3f] %d, Elo: %.1f +/- %.1f, LOS: %.1f%%",
+        wins, losses, draws, score(), getGames(), elo(), eloError(), los() * 100);
+  }
+}
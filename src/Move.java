@@ -0,0 +1,181 @@
+/**
+ * Contains static methods for packing Chess moves into a single int so that they can be stored in
+ * primitive buffers. Bits 0-5 hold the origin square, bits 6-11 the target square, bits 12-15 the
+ * Position piece code of the moving piece and bits 16-19 the code of the captured piece plus one
+ * (zero when nothing is captured).
+ *
+ * @author Eligh Alvarez
+ */
+public final class Move {
+
+  public static final int NONE = 0;
+
+  private Move() {}
+
+  /**
+   * Packs a move into an int.
+   * @param from the origin square
+   * @param to the target square
+   * @param piece the code of the moving piece
+   * @param captured the code of the captured piece, or Position.NO_PIECE
+   * @return the packed move
+   */
+  public static int encode(int from, int to, int piece, int captured) {
+    return from | (to << 6) | (piece << 12) | ((captured + 1) << 16);
+  }
+
+  public static int from(int move) {
+    return move & 63;
+  }
+
+  public static int to(int move) {
+    return (move >>> 6) & 63;
+  }
+
+  public static int piece(int move) {
+    return (move >>> 12) & 15;
+  }
+
+  /**
+   * Returns the code of the piece captured by the provided move.
+   * @param move the packed move
+   * @return the captured piece code, or Position.NO_PIECE if the move is not a capture
+   */
+  public static int captured(int move) {
+    return ((move >>> 16) & 15) - 1;
+  }
+
+  public static boolean isCapture(int move) {
+    return (move & (15 << 16)) != 0;
+  }
+
+  /**
+   * Returns the name of a square, such as "e4".
+   * @param square the square index
+   * @return the name of the square
+   */
+  public static String squareName(int square) {
+    return "" + (char) ('a' + (square & 7)) + (char) ('1' + (square >>> 3));
+  }
+
+  /**
+   * Returns the coordinate notation of a move, such as "e2e4".
+   * @param move the packed move
+   * @return the move in coordinate notation
+   */
+  public static String toString(int move) {
+    if (move == NONE) return "0000";
+    return squareName(from(move)) + squareName(to(move));
+  }
+
+  /**
+   * Returns the legal move of the provided Position written in coordinate notation, such as
+   * "e2e4".
+   * @param position the Position the move is played in
+   * @param text the move in coordinate notation
+   * @return the matching legal move, or NONE if there is none
+   */
+  public static int parse(Position position, String text) {
+    int[] moves = new int[MoveGenerator.MAX_MOVES];
+    int count = MoveGenerator.generateLegal(position, moves, 0);
+    for (int i = 0; i < count; i++) {
+      if (toString(moves[i]).equals(text)) return moves[i];
+    }
+    return NONE;
+  }
+
+  /**
+   * Returns the legal move of the provided Position written in Standard Algebraic Notation, such
+   * as "Nf3", "exd5" or "R1e2". Check marks and annotations such as "+" or "!?" are ignored.
+   * Castling and promotion are not part of this game, so they never match.
+   * @param position the Position the move is played in
+   * @param san the move in Standard Algebraic Notation
+   * @param moves a buffer of at least MoveGenerator.MAX_MOVES moves to generate into
+   * @return the matching legal move, or NONE if there is none or the move is ambiguous
+   */
+  public static int parseSan(Position position, CharSequence san, int[] moves) {
+    int end = san.length();
+    while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+    if (end < 2) return NONE;
+
+    int type = "NBRQK".indexOf(san.charAt(0)) + 1;
+    int start = type == 0 ? 0 : 1;
+    int toFile = san.charAt(end - 2) - 'a';
+    int toRank = san.charAt(end - 1) - '1';
+    if (toFile < 0 || toFile > 7 || toRank < 0 || toRank > 7) return NONE;
+
+    // Whatever lies between the piece letter and the target: disambiguation and capture mark
+    int fromFile = -1;
+    int fromRank = -1;
+    boolean capture = false;
+    for (int i = start; i < end - 2; i++) {
+      char c = san.charAt(i);
+      if (c >= 'a' && c <= 'h') fromFile = c - 'a';
+      else if (c >= '1' && c <= '8') fromRank = c - '1';
+      else if (c == 'x') capture = true;
+      else return NONE;
+    }
+
+    int to = toRank * 8 + toFile;
+    int found = NONE;
+    int count = MoveGenerator.generate(position, position.getSideToMove(), moves, 0);
+    for (int i = 0; i < count; i++) {
+      int move = moves[i];
+      if (to(move) != to || Position.typeOf(piece(move)) != type) continue;
+      if (fromFile >= 0 && (from(move) & 7) != fromFile) continue;
+      if (fromRank >= 0 && (from(move) >>> 3) != fromRank) continue;
+      if (capture && !isCapture(move)) continue;
+      if (!position.isLegal(move)) continue;
+      if (found != NONE) return NONE;
+      found = move;
+    }
+    return found;
+  }
+
+  /**
+   * Returns a legal move of the provided Position in Standard Algebraic Notation, such as "Nf3",
+   * "exd5", "R1e2" or "Qh4#". The move is played and taken back to test for check and mate.
+   * @param position the Position the move is played in
+   * @param move the legal move
+   * @param moves a buffer of at least MoveGenerator.MAX_MOVES moves to generate into
+   * @return the move in Standard Algebraic Notation
+   */
+  public static String toSan(Position position, int move, int[] moves) {
+    StringBuilder san = new StringBuilder(8);
+    int type = Position.typeOf(piece(move));
+    int from = from(move);
+    if (type == Position.PAWN) {
+      if (isCapture(move)) san.append(squareName(from).charAt(0));
+    } else {
+      san.append("NBRQK".charAt(type - 1));
+
+      // Name the origin file, rank or both when another piece of the same type could also move
+      boolean ambiguous = false;
+      boolean sameFile = false;
+      boolean sameRank = false;
+      int count = MoveGenerator.generateLegal(position, moves, 0);
+      for (int i = 0; i < count; i++) {
+        int other = moves[i];
+        if (other == move || to(other) != to(move) || piece(other) != piece(move)) continue;
+        ambiguous = true;
+        sameFile |= (from(other) & 7) == (from & 7);
+        sameRank |= (from(other) >>> 3) == (from >>> 3);
+      }
+      if (ambiguous) {
+        if (!sameFile) san.append(squareName(from).charAt(0));
+        else if (!sameRank) san.append(squareName(from).charAt(1));
+        else san.append(squareName(from));
+      }
+    }
+    if (isCapture(move)) san.append('x');
+    san.append(squareName(to(move)));
+
+    int them = 1 - Position.colorOf(piece(move));
+    position.makeMove(move);
+    if (position.inCheck(them)) {
+      san.append(MoveGenerator.generateLegal(position, moves, 0) == 0 ? '#' : '+');
+    }
+    position.unmakeMove(move);
+    return san.toString();
+  }
+}
@@ -0,0 +1,91 @@
+/**
+ * Generates pseudo-legal moves directly from a Position into caller-supplied int buffers. The
+ * generated moves follow the same rules as GamePiece.getMoves and GamePiece.getAttacks, but do
+ * not depend on the active position of a Board, do not touch any highlights and do not allocate.
+ * Moves are packed with the Move class.
+ *
+ * @author Eligh Alvarez
+ */
+public final class MoveGenerator {
+
+  // An upper bound on the number of moves in any position
+  public static final int MAX_MOVES = 256;
+
+  private MoveGenerator() {}
+
+  /**
+   * Writes every pseudo-legal move for the provided side into the buffer, captures first.
+   * @param position the position to generate moves for
+   * @param side the color of the moving side
+   * @param moves the buffer to write moves into
+   * @param count the index at which to start writing
+   * @return the index after the last move written
+   */
+  public static int generate(Position position, int side, int[] moves, int count) {
+    count = generateCaptures(position, side, moves, count);
+    return generateQuiets(position, side, moves, count);
+  }
+
+  /**
+   * Writes every pseudo-legal capture for the provided side into the buffer.
+   * @param position the position to generate captures for
+   * @param side the color of the moving side
+   * @param moves the buffer to write moves into
+   * @param count the index at which to start writing
+   * @return the index after the last move written
+   */
+  public static int generateCaptures(Position position, int side, int[] moves, int count) {
+    long pieces = position.occupancy(side);
+    while (pieces != 0) {
+      int from = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      int piece = position.pieceAt(from);
+      long targets = position.capturesFrom(from);
+      while (targets != 0) {
+        int to = Long.numberOfTrailingZeros(targets);
+        targets &= targets - 1;
+        moves[count++] = Move.encode(from, to, piece, position.pieceAt(to));
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Writes every pseudo-legal non-capturing move for the provided side into the buffer.
+   * @param position the position to generate moves for
+   * @param side the color of the moving side
+   * @param moves the buffer to write moves into
+   * @param count the index at which to start writing
+   * @return the index after the last move written
+   */
+  public static int generateQuiets(Position position, int side, int[] moves, int count) {
+    long pieces = position.occupancy(side);
+    while (pieces != 0) {
+      int from = Long.numberOfTrailingZeros(pieces);
+      pieces &= pieces - 1;
+      int piece = position.pieceAt(from);
+      long targets = position.movesFrom(from);
+      while (targets != 0) {
+        int to = Long.numberOfTrailingZeros(targets);
+        targets &= targets - 1;
+        moves[count++] = Move.encode(from, to, piece, Position.NO_PIECE);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Writes every legal move for the side to move into the buffer, captures first.
+   * @param position the position to generate moves for
+   * @param moves the buffer to write moves into
+   * @param count the index at which to start writing
+   * @return the index after the last move written
+   */
+  public static int generateLegal(Position position, int[] moves, int count) {
+    int end = generate(position, position.getSideToMove(), moves, count);
+    for (int i = count; i < end; i++) {
+      if (position.isLegal(moves[i])) moves[count++] = moves[i];
+    }
+    return count;
+  }
+}
@@ -0,0 +1,190 @@
+/**
+ * Hands out the moves of a position one at a time in the order a search is most likely to
+ * benefit from: the transposition table move, then captures from the most valuable victim and
+ * least valuable attacker (by GamePiece.getPoints()), then the killer moves of the ply, then the
+ * remaining quiet moves by their history score.
+ *
+ * Moves are generated and ordered lazily. Quiet moves are not generated at all until every
+ * capture and killer has been tried, and each call to next only selects the best remaining move
+ * instead of sorting the whole list, so a node that cuts off early does little work. A search
+ * keeps one MovePicker per ply and reuses it, so picking moves does not allocate.
+ *
+ * @author Eligh Alvarez
+ */
+public class MovePicker {
+
+  // Stages, in the order they are played
+  private static final int TABLE_MOVE = 0;
+  private static final int GENERATE_CAPTURES = 1;
+  private static final int CAPTURES = 2;
+  private static final int FIRST_KILLER = 3;
+  private static final int SECOND_KILLER = 4;
+  private static final int GENERATE_QUIETS = 5;
+  private static final int QUIETS = 6;
+  private static final int DONE = 7;
+
+  private final int[] moves;
+  private final int[] scores;
+  private Position position;
+  private int[][] history;
+  private int tableMove;
+  private int firstKiller;
+  private int secondKiller;
+  private boolean capturesOnly;
+  private int stage;
+  private int index;
+  private int count;
+
+  /**
+   * Creates a new MovePicker with its own move buffer.
+   */
+  public MovePicker() {
+    moves = new int[MoveGenerator.MAX_MOVES];
+    scores = new int[MoveGenerator.MAX_MOVES];
+  }
+
+  /**
+   * Starts picking every pseudo-legal move of the side to move.
+   * @param position the position to pick moves from
+   * @param tableMove the move stored in the transposition table, or Move.NONE
+   * @param firstKiller the most recent killer move of this ply, or Move.NONE
+   * @param secondKiller the older killer move of this ply, or Move.NONE
+   * @param history the history scores, indexed by piece code and target square
+   */
+  public void init(Position position, int tableMove, int firstKiller, int secondKiller,
+      int[][] history) {
+    this.position = position;
+    this.history = history;
+    this.tableMove = isPseudoLegal(tableMove) ? tableMove : Move.NONE;
+    this.firstKiller = isQuiet(firstKiller) && firstKiller != this.tableMove
+        ? firstKiller : Move.NONE;
+    this.secondKiller = isQuiet(secondKiller) && secondKiller != this.tableMove
+        && secondKiller != this.firstKiller ? secondKiller : Move.NONE;
+    capturesOnly = false;
+    stage = TABLE_MOVE;
+  }
+
+  /**
+   * Starts picking only the pseudo-legal captures of the side to move.
+   * @param position the position to pick captures from
+   */
+  public void initCaptures(Position position) {
+    this.position = position;
+    tableMove = Move.NONE;
+    firstKiller = Move.NONE;
+    secondKiller = Move.NONE;
+    capturesOnly = true;
+    stage = GENERATE_CAPTURES;
+  }
+
+  /**
+   * Returns the next move to try.
+   * @return the next pseudo-legal move, or Move.NONE when every move has been returned
+   */
+  public int next() {
+    while (true) {
+      switch (stage) {
+        case TABLE_MOVE:
+          stage = GENERATE_CAPTURES;
+          if (tableMove != Move.NONE) return tableMove;
+          break;
+        case GENERATE_CAPTURES:
+          count = MoveGenerator.generateCaptures(position, position.getSideToMove(), moves, 0);
+          for (int i = 0; i < count; i++) scores[i] = captureScore(moves[i]);
+          index = 0;
+          stage = CAPTURES;
+          break;
+        case CAPTURES:
+          if (index < count) {
+            int move = selectBest();
+            if (move != tableMove) return move;
+            break;
+          }
+          stage = capturesOnly ? DONE : FIRST_KILLER;
+          break;
+        case FIRST_KILLER:
+          stage = SECOND_KILLER;
+          if (firstKiller != Move.NONE) return firstKiller;
+          break;
+        case SECOND_KILLER:
+          stage = GENERATE_QUIETS;
+          if (secondKiller != Move.NONE) return secondKiller;
+          break;
+        case GENERATE_QUIETS:
+          count = MoveGenerator.generateQuiets(position, position.getSideToMove(), moves, 0);
+          for (int i = 0; i < count; i++) {
+            scores[i] = history[Move.piece(moves[i])][Move.to(moves[i])];
+          }
+          index = 0;
+          stage = QUIETS;
+          break;
+        case QUIETS:
+          if (index < count) {
+            int move = selectBest();
+            if (move != tableMove && move != firstKiller && move != secondKiller) return move;
+            break;
+          }
+          stage = DONE;
+          break;
+        default:
+          return Move.NONE;
+      }
+    }
+  }
+
+  /**
+   * Returns the ordering score of a capture: most valuable victim first, then least valuable
+   * attacker.
+   * @param move the capture to score
+   * @return the score of the capture
+   */
+  public static int captureScore(int move) {
+    int victim = Evaluator.PIECE_VALUES[Position.typeOf(Move.captured(move))];
+    int attacker = Evaluator.PIECE_VALUES[Position.typeOf(Move.piece(move))];
+    return victim * 16 - attacker / 100;
+  }
+
+  /**
+   * Moves the highest scoring remaining move to the front of the remaining moves and returns it.
+   * @return the highest scoring remaining move
+   */
+  private int selectBest() {
+    int best = index;
+    for (int i = index + 1; i < count; i++) {
+      if (scores[i] > scores[best]) best = i;
+    }
+    int move = moves[best];
+    moves[best] = moves[index];
+    scores[best] = scores[index];
+    moves[index] = move;
+    index++;
+    return move;
+  }
+
+  /**
+   * Returns whether a move from another position (such as a table or killer move) is
+   * pseudo-legal in the current position.
+   * @param move the move to check
+   * @return true if the move can be played here, false otherwise
+   */
+  private boolean isPseudoLegal(int move) {
+    if (move == Move.NONE) return false;
+    int from = Move.from(move);
+    int piece = Move.piece(move);
+    if (position.pieceAt(from) != piece || Position.colorOf(piece) != position.getSideToMove()) {
+      return false;
+    }
+    if (position.pieceAt(Move.to(move)) != Move.captured(move)) return false;
+    long targets = Move.isCapture(move) ? position.capturesFrom(from) : position.movesFrom(from);
+    return (targets & (1L << Move.to(move))) != 0;
+  }
+
+  /**
+   * Returns whether a move is a pseudo-legal quiet move in the current position.
+   * @param move the move to check
+   * @return true if the move is a playable non-capture, false otherwise
+   */
+  private boolean isQuiet(int move) {
+    return !Move.isCapture(move) && isPseudoLegal(move);
+  }
+}
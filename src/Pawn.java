@@ -9,16 +9,17 @@ public class Pawn extends GamePiece {
 
   private static final int POINT_VALUE = 1;
 
-  private String pieceColor;
+  private byte side;
   private boolean hasMoved;
   private Vector2 currPos;
 
   /**
-   * Creates a new Pawn of the specified ASCII color.
+   * Creates a new Pawn of the specified side.
+   * @param side Position.WHITE or Position.BLACK
    */
-  public Pawn(String pieceColor) {
+  public Pawn(int side) {
     this.hasMoved = false;
-    this.pieceColor = pieceColor;
+    this.side = (byte) side;
     this.currPos = new Vector2(-1, -1);
   }
 
@@ -33,67 +34,46 @@ public class Pawn extends GamePiece {
   /**
    * Returns a list of valid moves for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of moves for this piece.
    */
-  public ArrayList<Vector2> getMoves(Board gameBoard) {
-    ArrayList<Vector2> moves = new ArrayList<>();
-    int colorMultiplier = pieceColor.equals(Chess.WHITE_PIECE_COLOR) ? 1 : -1;
-    Vector2 currPos = gameBoard.getActivePos();
+  public ArrayList<Vector2> getMoves(Board gameBoard, Vector2 currPos) {
+    long empty = ~gameBoard.getPosition().occupied();
+    long pawn = Bitboards.bit(Board.toSquare(currPos));
+    boolean white = side == Position.WHITE;
 
     // One square forward
-    Vector2 tempMove = new Vector2(currPos.getX(), currPos.getY() + colorMultiplier);
-    if (!Board.posInBounds(tempMove)) return moves;
-    if (!gameBoard.posEmpty(tempMove)) return moves;
-    moves.add(tempMove);
+    long single = (white ? pawn << 8 : pawn >>> 8) & empty;
 
     // Two squares forward
-    if (!hasMoved) {
-      tempMove = new Vector2(currPos.getX(), currPos.getY() + (2 * colorMultiplier));
-      if (!Board.posInBounds(tempMove)) return moves;
-      if (!gameBoard.posEmpty(tempMove)) return moves;
-      moves.add(tempMove);
-    }
-
-    return moves;
+    long pushes = single;
+    if (!hasMoved) pushes |= (white ? single << 8 : single >>> 8) & empty;
+
+    return addPositions(new ArrayList<>(), pushes);
   }
 
   /**
    * Returns a list of valid attacks for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of attacks for this piece.
    */
-  public ArrayList<Vector2> getAttacks(Board gameBoard) {
-    ArrayList<Vector2> attacks = new ArrayList<>();
-    int colorMultiplier = pieceColor.equals(Chess.WHITE_PIECE_COLOR) ? 1 : -1;
-    Vector2 currPos = gameBoard.getActivePos();
-
-    // Left diagonal
-    Vector2 tempAttack = new Vector2(currPos.getX() - 1, currPos.getY() + colorMultiplier);
-    if (Board.posInBounds(tempAttack) // Within bounds
-        && !gameBoard.posEmpty(tempAttack) // Piece exists
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) { // Color is opposite
-      attacks.add(tempAttack);
-    }
-
-    // Right diagonal
-    tempAttack = new Vector2(currPos.getX() + 1, currPos.getY() + colorMultiplier);
-    if (Board.posInBounds(tempAttack) // Within bounds
-        && !gameBoard.posEmpty(tempAttack) // Piece exists
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) { // Color is opposite
-      attacks.add(tempAttack);
-    }
+  public ArrayList<Vector2> getAttacks(Board gameBoard, Vector2 currPos) {
+    int color = side;
+    long targets = Bitboards.PAWN_ATTACKS[color][Board.toSquare(currPos)]
+        & gameBoard.getPosition().occupancy(1 - color);
 
     // TODO: Add En Passant
 
-    return attacks;
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
-   * Returns the ASCII color of this piece.
-   * @return the ASCII color of this piece.
+   * Returns the side this piece plays for.
+   * @return Position.WHITE or Position.BLACK
    */
-  public String getColor() {
-    return pieceColor;
+  public int getSide() {
+    return side;
   }
 
   /**
@@ -101,7 +81,7 @@ public class Pawn extends GamePiece {
    * @return a String representation of this piece.
    */
   public String toString() {
-    return pieceColor + "P" + Chess.DEFAULT_COLOR;
+    return BoardRenderer.sideColor(side) + "P" + Chess.DEFAULT_COLOR;
   }
 
   /**
@@ -122,7 +102,7 @@ public class Pawn extends GamePiece {
    * @return a duplicate copy of this piece.
    */
   public GamePiece copy() {
-    Pawn copy = new Pawn(this.pieceColor);
+    Pawn copy = new Pawn(this.side);
     copy.currPos = this.currPos.deepCopy();
     copy.hasMoved = this.hasMoved;
     return copy;
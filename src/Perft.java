@@ -0,0 +1,332 @@
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree from a position to a fixed depth ("perft"). This
+ * is used both to validate move generation and to measure its throughput.
+ *
+ * By default moves are generated through GamePiece.getMoves, GamePiece.getAttacks and
+ * Board.movesIntoCheck, exactly as the game does, so the counts track any change to that path.
+ * The bitboard mode uses MoveGenerator with Position.makeMove and unmakeMove instead.
+ *
+ * With more than one thread, the subtrees below the root moves (and below the second ply, when
+ * there are too few root moves to keep every thread busy) are counted as separate tasks in a
+ * ForkJoinPool. Each task works on its own Board or Position, and the task counts are summed
+ * once they have all finished, so the totals are identical to a single-threaded run.
+ *
+ * @author Eligh Alvarez
+ */
+public class Perft {
+
+  // A node's children are split into tasks again when it has fewer than this many moves per thread
+  private static final int SPLIT_WIDTH = 4;
+
+  /**
+   * Runs perft from the standard starting position.
+   * Usage: java Perft depth [divide] [bitboard] [threads n]
+   * @param args the depth, followed by optional "divide", "bitboard" and "threads n" flags
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("Usage: java Perft depth [divide] [bitboard] [threads n]");
+      return;
+    }
+    int depth;
+    try {
+      depth = Integer.parseInt(args[0]);
+    } catch (NumberFormatException e) {
+      System.out.println("Depth must be a number.");
+      return;
+    }
+    boolean divide = false;
+    boolean bitboard = false;
+    int threads = 1;
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equals("divide")) divide = true;
+      else if (args[i].equals("bitboard")) bitboard = true;
+      else if (args[i].equals("threads") && i + 1 < args.length) {
+        try {
+          threads = Integer.parseInt(args[++i]);
+        } catch (NumberFormatException e) {
+          System.out.println("Thread count must be a number.");
+          return;
+        }
+      }
+    }
+
+    Board board = new Board();
+    new Chess(board);
+    run(board, depth, divide, bitboard, threads);
+  }
+
+  /**
+   * Runs perft from the provided Board and prints the node count and nodes per second, along
+   * with the count below each root move if requested.
+   * @param board the Board to count from (left unchanged)
+   * @param depth the depth to count to (at least 1)
+   * @param divide whether to print the count below each root move
+   * @param bitboard whether to use the bitboard move generator instead of the GamePieces
+   * @param threads the number of threads to count with
+   * @return the number of leaf nodes
+   */
+  public static long run(Board board, int depth, boolean divide, boolean bitboard,
+      int threads) {
+    long start = System.nanoTime();
+    long nodes;
+    if (threads > 1) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        if (bitboard) nodes = pool.invoke(new PositionTask(board.toPosition(), depth, 2, divide));
+        else nodes = pool.invoke(new BoardTask(board.copy(), depth, 2, divide));
+      } finally {
+        pool.shutdown();
+      }
+    } else if (bitboard) {
+      nodes = divide(board.toPosition(), depth, divide);
+    } else {
+      nodes = divide(board, depth, divide);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    System.out.println("Nodes: " + nodes);
+    System.out.println("Time: " + (elapsed / 1000000) + " ms");
+    System.out.println("Nodes/second: " + (nodes * 1000000000L / Math.max(1, elapsed)));
+    return nodes;
+  }
+
+  /**
+   * Counts leaf nodes below each legal move of the provided Board using the GamePieces.
+   * @param board the Board to count from (left unchanged)
+   * @param depth the depth to count to (at least 1)
+   * @param print whether to print the count below each root move
+   * @return the total number of leaf nodes
+   */
+  public static long divide(Board board, int depth, boolean print) {
+    Board root = board.copy();
+    root.setActiveSquare(new Vector2(0, 0));
+    long total = 0;
+
+    for (Vector2[] move : legalMoves(root)) {
+      long nodes = 1;
+      if (depth > 1) {
+        Board child = root.copy();
+        child.movePiece(move[0], move[1]);
+        nodes = perft(child, depth - 1);
+      }
+      if (print) System.out.println(moveName(move[0], move[1]) + ": " + nodes);
+      total += nodes;
+    }
+    return total;
+  }
+
+  /**
+   * Counts leaf nodes of the provided Board to the provided depth using the GamePieces.
+   * @param board the Board to count from
+   * @param depth the depth to count to (at least 1)
+   * @return the number of leaf nodes
+   */
+  public static long perft(Board board, int depth) {
+    ArrayList<Vector2[]> moves = legalMoves(board);
+    if (depth == 1) return moves.size();
+
+    long nodes = 0;
+    for (Vector2[] move : moves) {
+      Board child = board.copy();
+      child.movePiece(move[0], move[1]);
+      nodes += perft(child, depth - 1);
+    }
+    return nodes;
+  }
+
+  /**
+   * Returns the legal moves for the side to move on the provided Board as [from, to] pairs.
+   * @param board the Board to generate moves for
+   * @return the legal moves of the side to move
+   */
+  private static ArrayList<Vector2[]> legalMoves(Board board) {
+    ArrayList<Vector2[]> legal = new ArrayList<>();
+    int side = board.getSideToMove();
+
+    for (int i = 1; i <= 8; i++) {
+      for (int j = 1; j <= 8; j++) {
+        Vector2 pos = new Vector2(i, j);
+        GamePiece piece = board.getSquare(pos).getPiece();
+        if (piece == null || piece.getSide() != side) continue;
+
+        ArrayList<Vector2> targets = piece.getMoves(board, pos);
+        targets.addAll(piece.getAttacks(board, pos));
+        for (Vector2 target : targets) {
+          if (!board.movesIntoCheck(pos, target)) legal.add(new Vector2[] {pos, target});
+        }
+      }
+    }
+    return legal;
+  }
+
+  /**
+   * Counts leaf nodes below each legal move of the provided Position using MoveGenerator.
+   * @param position the Position to count from (left unchanged)
+   * @param depth the depth to count to (at least 1)
+   * @param print whether to print the count below each root move
+   * @return the total number of leaf nodes
+   */
+  public static long divide(Position position, int depth, boolean print) {
+    int[][] buffers = new int[depth + 1][MoveGenerator.MAX_MOVES];
+    int[] moves = buffers[depth];
+    int count = MoveGenerator.generateLegal(position, moves, 0);
+    long total = 0;
+
+    for (int i = 0; i < count; i++) {
+      long nodes = 1;
+      if (depth > 1) {
+        position.makeMove(moves[i]);
+        nodes = perft(position, depth - 1, buffers);
+        position.unmakeMove(moves[i]);
+      }
+      if (print) System.out.println(Move.toString(moves[i]) + ": " + nodes);
+      total += nodes;
+    }
+    return total;
+  }
+
+  /**
+   * Counts leaf nodes of the provided Position to the provided depth using MoveGenerator.
+   * @param position the Position to count from (left unchanged)
+   * @param depth the depth to count to (at least 1)
+   * @param buffers one move buffer per remaining depth
+   * @return the number of leaf nodes
+   */
+  public static long perft(Position position, int depth, int[][] buffers) {
+    int[] moves = buffers[depth];
+    int count = MoveGenerator.generateLegal(position, moves, 0);
+    if (depth == 1) return count;
+
+    long nodes = 0;
+    for (int i = 0; i < count; i++) {
+      position.makeMove(moves[i]);
+      nodes += perft(position, depth - 1, buffers);
+      position.unmakeMove(moves[i]);
+    }
+    return nodes;
+  }
+
+  /**
+   * Returns the coordinate notation of a move between two positions, such as "e2e4".
+   * @param from the origin of the move
+   * @param to the target of the move
+   * @return the move in coordinate notation
+   */
+  private static String moveName(Vector2 from, Vector2 to) {
+    return Move.squareName(Board.toSquare(from)) + Move.squareName(Board.toSquare(to));
+  }
+
+  /**
+   * Counts the leaf nodes below a Board using the GamePieces, forking a task per move for the
+   * first plies.
+   */
+  private static class BoardTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+
+    private final Board board;
+    private final int depth;
+    private final int splitPlies;
+    private final boolean print;
+
+    /**
+     * Creates a new task for the provided Board.
+     * @param board the Board to count from, owned by this task
+     * @param depth the depth to count to (at least 1)
+     * @param splitPlies the number of plies below this node that may be split into tasks
+     * @param print whether to print the count below each move of this node
+     */
+    BoardTask(Board board, int depth, int splitPlies, boolean print) {
+      this.board = board;
+      this.depth = depth;
+      this.splitPlies = splitPlies;
+      this.print = print;
+    }
+
+    protected Long compute() {
+      if (splitPlies == 0 || depth == 1) {
+        if (print) return divide(board, depth, true);
+        return perft(board, depth);
+      }
+
+      ArrayList<Vector2[]> moves = legalMoves(board);
+      int childSplit = splitPlies - 1;
+      if (moves.size() >= SPLIT_WIDTH * getPool().getParallelism()) childSplit = 0;
+
+      ArrayList<BoardTask> tasks = new ArrayList<>();
+      for (Vector2[] move : moves) {
+        Board child = board.copy();
+        child.movePiece(move[0], move[1]);
+        tasks.add(new BoardTask(child, depth - 1, childSplit, false));
+      }
+      invokeAll(tasks);
+
+      long total = 0;
+      for (int i = 0; i < tasks.size(); i++) {
+        long nodes = tasks.get(i).join();
+        if (print) System.out.println(moveName(moves.get(i)[0], moves.get(i)[1]) + ": " + nodes);
+        total += nodes;
+      }
+      return total;
+    }
+  }
+
+  /**
+   * Counts the leaf nodes below a Position using MoveGenerator, forking a task per move for the
+   * first plies.
+   */
+  private static class PositionTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+
+    private final Position position;
+    private final int depth;
+    private final int splitPlies;
+    private final boolean print;
+
+    /**
+     * Creates a new task for the provided Position.
+     * @param position the Position to count from, owned by this task
+     * @param depth the depth to count to (at least 1)
+     * @param splitPlies the number of plies below this node that may be split into tasks
+     * @param print whether to print the count below each move of this node
+     */
+    PositionTask(Position position, int depth, int splitPlies, boolean print) {
+      this.position = position;
+      this.depth = depth;
+      this.splitPlies = splitPlies;
+      this.print = print;
+    }
+
+    protected Long compute() {
+      if (splitPlies == 0 || depth == 1) {
+        if (print) return divide(position, depth, true);
+        return perft(position, depth, new int[depth + 1][MoveGenerator.MAX_MOVES]);
+      }
+
+      int[] moves = new int[MoveGenerator.MAX_MOVES];
+      int count = MoveGenerator.generateLegal(position, moves, 0);
+      int childSplit = splitPlies - 1;
+      if (count >= SPLIT_WIDTH * getPool().getParallelism()) childSplit = 0;
+
+      ArrayList<PositionTask> tasks = new ArrayList<>();
+      for (int i = 0; i < count; i++) {
+        Position child = position.copy();
+        child.makeMove(moves[i]);
+        tasks.add(new PositionTask(child, depth - 1, childSplit, false));
+      }
+      invokeAll(tasks);
+
+      long total = 0;
+      for (int i = 0; i < count; i++) {
+        long nodes = tasks.get(i).join();
+        if (print) System.out.println(Move.toString(moves[i]) + ": " + nodes);
+        total += nodes;
+      }
+      return total;
+    }
+  }
+}
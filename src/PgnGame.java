@@ -0,0 +1,95 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A single game read from a PGN file: its tag pairs, its starting Position and the moves played
+ * from it, already checked for legality.
+ *
+ * @author Eligh Alvarez
+ */
+public class PgnGame {
+
+  private final Map<String, String> tags;
+  private final Position start;
+  private final int[] moves;
+  private final String result;
+
+  /**
+   * Creates a new game.
+   * @param tags the tag pairs, in the order they were read
+   * @param start the starting Position (not copied)
+   * @param moves the buffer holding the moves played
+   * @param moveCount the number of moves in the buffer
+   * @param result the game termination marker, such as "1-0" or "*"
+   */
+  public PgnGame(Map<String, String> tags, Position start, int[] moves, int moveCount,
+      String result) {
+    this.tags = Collections.unmodifiableMap(new LinkedHashMap<>(tags));
+    this.start = start;
+    this.moves = Arrays.copyOf(moves, moveCount);
+    this.result = result;
+  }
+
+  /**
+   * Returns the value of a tag pair.
+   * @param name the name of the tag, such as "White"
+   * @return the value of the tag, or null if the game does not have it
+   */
+  public String getTag(String name) {
+    return tags.get(name);
+  }
+
+  /**
+   * Returns every tag pair of this game, in the order they were read.
+   * @return an unmodifiable map from tag names to values
+   */
+  public Map<String, String> getTags() {
+    return tags;
+  }
+
+  /**
+   * Returns the number of moves (plies) in this game.
+   * @return the number of moves
+   */
+  public int getMoveCount() {
+    return moves.length;
+  }
+
+  /**
+   * Returns a move of this game.
+   * @param ply the index of the move, starting from 0
+   * @return the packed move
+   */
+  public int getMove(int ply) {
+    return moves[ply];
+  }
+
+  /**
+   * Returns the result of this game.
+   * @return the game termination marker, such as "1-0", "1/2-1/2" or "*"
+   */
+  public String getResult() {
+    return result;
+  }
+
+  /**
+   * Returns the Position this game starts from.
+   * @return a copy of the starting Position
+   */
+  public Position getStart() {
+    return start.copy();
+  }
+
+  /**
+   * Returns the Position after a number of moves of this game.
+   * @param ply the number of moves to play from the start
+   * @return a new Position with the moves played
+   */
+  public Position positionAfter(int ply) {
+    Position position = start.copy();
+    for (int i = 0; i < ply; i++) position.makeMove(moves[i]);
+    return position;
+  }
+}
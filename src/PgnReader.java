@@ -0,0 +1,415 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Reads games one at a time from a PGN file. The file is streamed through a fixed-size buffer, so
+ * memory use does not grow with the size of the file, only with the length of the longest game.
+ * Moves are decoded from Standard Algebraic Notation against the legal moves of the game's
+ * Position, and the starting position is taken from the FEN tag when there is one. Comments,
+ * variations and numeric annotations are skipped.
+ *
+ * A game that cannot be read, because of an illegal or unreadable move, a malformed tag or a bad
+ * FEN tag, is skipped up to its result or the next tag section, and reading carries on with the
+ * following game. Games using castling, en passant or promotion are skipped the same way, since
+ * those moves are not part of this game. Skipped games are counted by getErrors.
+ *
+ * @author Eligh Alvarez
+ */
+public class PgnReader implements Closeable {
+
+  public static final int BUFFER_SIZE = 1 << 16;
+
+  // Longer tokens and tag values can only come from a damaged file
+  private static final int MAX_TOKEN = 256;
+  private static final int MAX_TAG_VALUE = 4096;
+
+  private final ReadableByteChannel channel;
+  private final ByteBuffer buffer;
+  private final StringBuilder token;
+  private final byte[] tagValue;
+  private final LinkedHashMap<String, String> tags;
+  private final Position standard;
+  private final Position start;
+  private final Position position;
+  private final int[] legalMoves;
+  private int[] moves;
+  private int moveCount;
+  private String result;
+  private String error;
+  private int pending;
+
+  private long games;
+  private long errors;
+  private long totalMoves;
+  private long bytesRead;
+  private String lastError;
+
+  /**
+   * Reads a PGN file and prints how many games it holds and how fast they were read.
+   * Usage: java PgnReader file
+   * @param args the path of the PGN file
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("Usage: java PgnReader file");
+      return;
+    }
+    try (PgnReader reader = new PgnReader(Paths.get(args[0]))) {
+      long start = System.currentTimeMillis();
+      while (reader.next() != null) {
+        // Only the totals are reported
+      }
+      long time = Math.max(1, System.currentTimeMillis() - start);
+      System.out.println("Games: " + reader.getGames() + " (" + reader.getErrors() + " skipped)");
+      System.out.println("Moves: " + reader.getTotalMoves());
+      System.out.println("Time: " + time + " ms");
+      System.out.println("Games/second: " + reader.getGames() * 1000 / time);
+      System.out.println("MB/second: " + reader.getBytesRead() * 1000 / time / (1 << 20));
+      if (reader.getLastError() != null) {
+        System.out.println("Last skipped game: " + reader.getLastError());
+      }
+    } catch (IOException e) {
+      System.out.println("Could not read " + args[0] + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Opens a PGN file for reading.
+   * @param file the path of the PGN file
+   * @throws IOException if the file cannot be opened
+   */
+  public PgnReader(Path file) throws IOException {
+    this(FileChannel.open(file, StandardOpenOption.READ));
+  }
+
+  /**
+   * Reads PGN text from a channel.
+   * @param channel the channel to read from, which is closed with this reader
+   */
+  public PgnReader(ReadableByteChannel channel) {
+    this.channel = channel;
+    buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    buffer.flip();
+    token = new StringBuilder(MAX_TOKEN);
+    tagValue = new byte[MAX_TAG_VALUE];
+    tags = new LinkedHashMap<>();
+    standard = Fen.parse(Fen.STARTING_POSITION);
+    start = new Position();
+    position = new Position();
+    legalMoves = new int[MoveGenerator.MAX_MOVES];
+    moves = new int[256];
+    pending = -1;
+  }
+
+  /**
+   * Reads the next game that can be played through, skipping any that cannot.
+   * @return the next game, or null at the end of the input
+   * @throws IOException if the input cannot be read
+   */
+  public PgnGame next() throws IOException {
+    while (readGame()) {
+      games++;
+      if (error == null) {
+        totalMoves += moveCount;
+        return new PgnGame(tags, start.copy(), moves, moveCount, result);
+      }
+      errors++;
+      lastError = error;
+    }
+    return null;
+  }
+
+  /**
+   * Passes every remaining game that can be played through to an action, one at a time.
+   * @param action the action to run on each game
+   * @throws IOException if the input cannot be read
+   */
+  public void forEach(Consumer<PgnGame> action) throws IOException {
+    for (PgnGame game = next(); game != null; game = next()) action.accept(game);
+  }
+
+  /**
+   * Returns the number of games read so far, including skipped games.
+   * @return the number of games read
+   */
+  public long getGames() {
+    return games;
+  }
+
+  /**
+   * Returns the number of games skipped so far.
+   * @return the number of skipped games
+   */
+  public long getErrors() {
+    return errors;
+  }
+
+  /**
+   * Returns why the most recently skipped game was skipped.
+   * @return a description of the problem, or null if no game has been skipped
+   */
+  public String getLastError() {
+    return lastError;
+  }
+
+  /**
+   * Returns the number of moves in the games returned so far.
+   * @return the number of moves
+   */
+  public long getTotalMoves() {
+    return totalMoves;
+  }
+
+  /**
+   * Returns the number of bytes read from the input so far.
+   * @return the number of bytes read
+   */
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * Closes the input.
+   * @throws IOException if the input cannot be closed
+   */
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Reads the tags and moves of one game into this reader's state.
+   * @return true if a game was read, false at the end of the input
+   * @throws IOException if the input cannot be read
+   */
+  private boolean readGame() throws IOException {
+    tags.clear();
+    start.copyFrom(standard);
+    position.copyFrom(start);
+    moveCount = 0;
+    result = "*";
+    error = null;
+    boolean started = false;
+    boolean inMoves = false;
+
+    while (true) {
+      int c = read();
+      if (c < 0) return started;
+      if (c <= ' ') continue;
+      switch (c) {
+        case '[':
+          if (inMoves) {
+            pending = c;
+            return true;
+          }
+          started = true;
+          readTag();
+          break;
+        case '{':
+          skipPast('}');
+          break;
+        case ';':
+        case '%':
+          skipPast('\n');
+          break;
+        case '(':
+          skipVariation();
+          break;
+        case ')':
+          fail("unbalanced ')'");
+          break;
+        case '$':
+          readToken(read());
+          break;
+        default:
+          started = true;
+          inMoves = true;
+          readToken(c);
+          if (isResult()) {
+            result = token.toString();
+            return true;
+          }
+          playToken();
+      }
+    }
+  }
+
+  /**
+   * Plays the move in the current token, after removing any move number in front of it.
+   */
+  private void playToken() {
+    int digits = 0;
+    while (digits < token.length() && Character.isDigit(token.charAt(digits))) digits++;
+    if (digits > 0) {
+      if (digits == token.length() || token.charAt(digits) != '.') {
+        fail("unexpected \"" + token + "\"");
+        return;
+      }
+      int dots = digits;
+      while (dots < token.length() && token.charAt(dots) == '.') dots++;
+      token.delete(0, dots);
+    }
+    if (token.length() == 0 || error != null) return;
+
+    int move = Move.parseSan(position, token, legalMoves);
+    if (move == Move.NONE) {
+      fail("illegal or unreadable move \"" + token + "\" at ply " + (moveCount + 1));
+      return;
+    }
+    position.makeMove(move);
+    if (moveCount == moves.length) moves = Arrays.copyOf(moves, moveCount * 2);
+    moves[moveCount++] = move;
+  }
+
+  /**
+   * Reads a tag pair such as [White "Alvarez, Eligh"], after its opening bracket.
+   * @throws IOException if the input cannot be read
+   */
+  private void readTag() throws IOException {
+    int c = read();
+    while (c == ' ' || c == '\t') c = read();
+    token.setLength(0);
+    while (c > ' ' && c != '"' && c != ']' && token.length() < MAX_TOKEN) {
+      token.append((char) c);
+      c = read();
+    }
+    while (c == ' ' || c == '\t') c = read();
+    if (c != '"' || token.length() == 0) {
+      fail("malformed tag");
+      if (c != '\n') skipPast('\n');
+      return;
+    }
+
+    int length = 0;
+    for (c = read(); c != '"'; c = read()) {
+      if (c == '\\') c = read();
+      if (c < 0 || c == '\n' || length == tagValue.length) {
+        fail("malformed tag");
+        if (c > 0 && c != '\n') skipPast('\n');
+        return;
+      }
+      tagValue[length++] = (byte) c;
+    }
+    skipPast(']');
+
+    String name = token.toString();
+    String value = new String(tagValue, 0, length, StandardCharsets.UTF_8);
+    tags.put(name, value);
+    if (name.equals("FEN")) {
+      try {
+        Fen.parse(value, start);
+        position.copyFrom(start);
+      } catch (IllegalArgumentException e) {
+        fail("bad FEN tag \"" + value + "\"");
+      }
+    }
+  }
+
+  /**
+   * Reads a token of move text into the token buffer. A token ends at white space or at the
+   * start of a comment, variation, annotation or tag, which is left to be read next.
+   * @param first the first character of the token
+   * @throws IOException if the input cannot be read
+   */
+  private void readToken(int first) throws IOException {
+    token.setLength(0);
+    int c = first;
+    while (c > ' ' && "{}()[];$".indexOf(c) < 0) {
+      if (token.length() < MAX_TOKEN) token.append((char) c);
+      else fail("overlong token");
+      c = read();
+    }
+    if (c > ' ') pending = c;
+  }
+
+  /**
+   * Determines whether the current token is a game termination marker.
+   * @return true if the token is "1-0", "0-1", "1/2-1/2" or "*"
+   */
+  private boolean isResult() {
+    int length = token.length();
+    char first = length > 0 ? token.charAt(0) : ' ';
+    if (length == 1) return first == '*';
+    if (length == 3) {
+      return (first == '1' || first == '0') && token.charAt(1) == '-'
+          && token.charAt(2) == (first == '1' ? '0' : '1');
+    }
+    return length == 7 && "1/2-1/2".contentEquals(token);
+  }
+
+  /**
+   * Skips a variation, including nested variations and comments, after its opening parenthesis.
+   * @throws IOException if the input cannot be read
+   */
+  private void skipVariation() throws IOException {
+    int depth = 1;
+    while (depth > 0) {
+      int c = read();
+      if (c < 0) {
+        fail("unterminated variation");
+        return;
+      }
+      if (c == '(') depth++;
+      else if (c == ')') depth--;
+      else if (c == '{') skipPast('}');
+      else if (c == ';') skipPast('\n');
+    }
+  }
+
+  /**
+   * Skips the input up to and including the provided character.
+   * @param end the character to stop after
+   * @throws IOException if the input cannot be read
+   */
+  private void skipPast(int end) throws IOException {
+    for (int c = read(); c != end; c = read()) {
+      if (c < 0) {
+        if (end != '\n') fail("unexpected end of input");
+        return;
+      }
+    }
+  }
+
+  /**
+   * Marks the current game as unreadable, keeping the first reason given.
+   * @param reason a description of the problem
+   */
+  private void fail(String reason) {
+    if (error != null) return;
+    String event = tags.get("Event");
+    error = reason + (event == null ? "" : " in \"" + event + "\"");
+  }
+
+  /**
+   * Returns the next byte of the input, refilling the buffer when it runs out.
+   * @return the next byte, or -1 at the end of the input
+   * @throws IOException if the input cannot be read
+   */
+  private int read() throws IOException {
+    if (pending >= 0) {
+      int c = pending;
+      pending = -1;
+      return c;
+    }
+    if (!buffer.hasRemaining()) {
+      buffer.clear();
+      int count;
+      do {
+        count = channel.read(buffer);
+      } while (count == 0);
+      buffer.flip();
+      if (count < 0) return -1;
+      bytesRead += count;
+    }
+    return buffer.get() & 0xFF;
+  }
+}
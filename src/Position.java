@@ -0,0 +1,792 @@
+import java.util.Arrays;
+
+/**
+ * A compact representation of a Chess position built from bitboards. Each piece type and color
+ * has its own 64-bit occupancy mask, and a small mailbox maps squares back to pieces. Squares are
+ * indexed 0-63 from a1 to h8 (see Bitboards).
+ *
+ * The moved-flags kept by King, Rook and Pawn are stored in a single "unmoved" mask, from which
+ * the castling rights are derived, so a Board can be converted to a Position and back without
+ * losing any state.
+ *
+ * @author Eligh Alvarez
+ */
+public class Position {
+
+  // Colors
+  public static final int WHITE = 0;
+  public static final int BLACK = 1;
+
+  // Piece types. A piece code is color * 6 + type.
+  public static final int PAWN = 0;
+  public static final int KNIGHT = 1;
+  public static final int BISHOP = 2;
+  public static final int ROOK = 3;
+  public static final int QUEEN = 4;
+  public static final int KING = 5;
+  public static final int NO_PIECE = -1;
+  public static final int NO_SQUARE = -1;
+
+  // Castling right flags
+  public static final int WHITE_KINGSIDE = 1;
+  public static final int WHITE_QUEENSIDE = 2;
+  public static final int BLACK_KINGSIDE = 4;
+  public static final int BLACK_QUEENSIDE = 8;
+
+  // Initial number of undo records; grows if a line of play gets longer
+  private static final int INITIAL_HISTORY = 256;
+
+  // Whether every make and unmake recomputes the hash from scratch to check it
+  private static boolean hashChecking = false;
+
+  // Whether every make and unmake recomputes the evaluation from scratch to check it
+  private static boolean evalChecking = false;
+
+  // Types whose moved-flag is tracked by their GamePiece
+  private static final int TRACKED_TYPES = (1 << PAWN) | (1 << ROOK) | (1 << KING);
+
+  private final long[] pieces;
+  private final long[] colors;
+  private final byte[] mailbox;
+  private final long[] squareAttacks;
+  private final long[] attackMaps;
+  private long unmoved;
+  private int sideToMove;
+  private int enPassant;
+  private int halfmoveClock;
+  private int fullmoveNumber;
+  private long hash;
+  private int midgameScore;
+  private int endgameScore;
+  private int phase;
+
+  // Undo records for makeMove, indexed by ply
+  private long[] undoHash;
+  private long[] undoUnmoved;
+  private int[] undoState;
+  private int ply;
+
+  /**
+   * Creates a new empty Position with white to move.
+   */
+  public Position() {
+    pieces = new long[12];
+    colors = new long[2];
+    mailbox = new byte[64];
+    squareAttacks = new long[64];
+    attackMaps = new long[2];
+    undoHash = new long[INITIAL_HISTORY];
+    undoUnmoved = new long[INITIAL_HISTORY];
+    undoState = new int[INITIAL_HISTORY];
+    clear();
+  }
+
+  /**
+   * Returns the square index of the provided board coordinates.
+   * @param x the column (1-8)
+   * @param y the row (1-8)
+   * @return the square index (0-63)
+   */
+  public static int square(int x, int y) {
+    return ((y - 1) << 3) + (x - 1);
+  }
+
+  /**
+   * Returns the column (1-8) of the provided square.
+   * @param square the square index
+   * @return the column of the square
+   */
+  public static int squareX(int square) {
+    return (square & 7) + 1;
+  }
+
+  /**
+   * Returns the row (1-8) of the provided square.
+   * @param square the square index
+   * @return the row of the square
+   */
+  public static int squareY(int square) {
+    return (square >>> 3) + 1;
+  }
+
+  /**
+   * Returns the piece code for the provided color and piece type.
+   * @param color the color of the piece
+   * @param type the type of the piece
+   * @return the piece code
+   */
+  public static int pieceCode(int color, int type) {
+    return color * 6 + type;
+  }
+
+  /**
+   * Returns the color of the provided piece code.
+   * @param code the piece code
+   * @return the color of the piece
+   */
+  public static int colorOf(int code) {
+    return code < 6 ? WHITE : BLACK;
+  }
+
+  /**
+   * Returns the piece type of the provided piece code.
+   * @param code the piece code
+   * @return the type of the piece
+   */
+  public static int typeOf(int code) {
+    return code < 6 ? code : code - 6;
+  }
+
+  /**
+   * Removes every piece and resets the side to move, en passant square and clocks.
+   */
+  public void clear() {
+    Arrays.fill(pieces, 0L);
+    Arrays.fill(colors, 0L);
+    Arrays.fill(mailbox, (byte) NO_PIECE);
+    Arrays.fill(squareAttacks, 0L);
+    Arrays.fill(attackMaps, 0L);
+    unmoved = 0L;
+    sideToMove = WHITE;
+    enPassant = NO_SQUARE;
+    halfmoveClock = 0;
+    fullmoveNumber = 1;
+    hash = 0L;
+    midgameScore = 0;
+    endgameScore = 0;
+    phase = 0;
+    ply = 0;
+  }
+
+  /**
+   * Turns hash checking on or off for all Positions. While on, every makeMove and unmakeMove
+   * recomputes the hash from scratch and throws an IllegalStateException if it does not match the
+   * incrementally updated one. This is slow and meant for testing only.
+   * @param enabled whether to check hashes
+   */
+  public static void setHashChecking(boolean enabled) {
+    hashChecking = enabled;
+  }
+
+  /**
+   * Turns evaluation checking on or off for all Positions. While on, every makeMove and
+   * unmakeMove recomputes the evaluation from scratch and throws an IllegalStateException if it
+   * does not match the incrementally updated one. This is slow and meant for testing only.
+   * @param enabled whether to check evaluations
+   */
+  public static void setEvalChecking(boolean enabled) {
+    evalChecking = enabled;
+  }
+
+  /**
+   * Puts a piece on the provided square, replacing any piece already there.
+   * @param code the piece code
+   * @param square the square to put the piece on
+   * @param moved whether the piece has moved (only kept for Kings, Rooks and Pawns)
+   */
+  public void putPiece(int code, int square, boolean moved) {
+    if (mailbox[square] != NO_PIECE) removePiece(square);
+    long b = 1L << square;
+    int rights = castlingRights();
+    pieces[code] |= b;
+    colors[colorOf(code)] |= b;
+    mailbox[square] = (byte) code;
+    if (!moved && (TRACKED_TYPES & (1 << typeOf(code))) != 0) unmoved |= b;
+    hash ^= Zobrist.PIECES[code][square]
+        ^ Zobrist.CASTLING[rights] ^ Zobrist.CASTLING[castlingRights()];
+    midgameScore += Evaluator.MIDGAME[code][square];
+    endgameScore += Evaluator.ENDGAME[code][square];
+    phase += Evaluator.PHASE_WEIGHTS[typeOf(code)];
+    updateAttacks(b);
+  }
+
+  /**
+   * Removes the piece on the provided square.
+   * @param square the square to clear
+   * @return the code of the removed piece, or NO_PIECE if the square was empty
+   */
+  public int removePiece(int square) {
+    int code = mailbox[square];
+    if (code == NO_PIECE) return NO_PIECE;
+    long b = ~(1L << square);
+    int rights = castlingRights();
+    pieces[code] &= b;
+    colors[colorOf(code)] &= b;
+    mailbox[square] = (byte) NO_PIECE;
+    unmoved &= b;
+    hash ^= Zobrist.PIECES[code][square]
+        ^ Zobrist.CASTLING[rights] ^ Zobrist.CASTLING[castlingRights()];
+    midgameScore -= Evaluator.MIDGAME[code][square];
+    endgameScore -= Evaluator.ENDGAME[code][square];
+    phase -= Evaluator.PHASE_WEIGHTS[typeOf(code)];
+    updateAttacks(~b);
+    return code;
+  }
+
+  /**
+   * Moves the piece on one square to another, capturing anything on the target square, and
+   * updates the moved-flags, en passant square, clocks and side to move. The position before the
+   * move is recorded for isRepetition, but the move cannot be taken back.
+   * @param from the square of the moving piece
+   * @param to the target square
+   */
+  public void movePiece(int from, int to) {
+    recordUndo();
+    int code = mailbox[from];
+    int captured = removePiece(to);
+    removePiece(from);
+    putPiece(code, to, true);
+
+    boolean pawnMove = typeOf(code) == PAWN;
+    setEnPassant(pawnMove && Math.abs(to - from) == 16 ? (from + to) >>> 1 : NO_SQUARE);
+    halfmoveClock = pawnMove || captured != NO_PIECE ? 0 : halfmoveClock + 1;
+    if (colorOf(code) == BLACK) fullmoveNumber++;
+    setSideToMove(1 - colorOf(code));
+  }
+
+  /**
+   * Plays a move produced by MoveGenerator and records what is needed to take it back. Moves
+   * must be taken back with unmakeMove in the reverse order they were made.
+   * @param move the packed move to play
+   */
+  public void makeMove(int move) {
+    recordUndo();
+
+    int from = Move.from(move);
+    int to = Move.to(move);
+    int piece = Move.piece(move);
+    int captured = Move.captured(move);
+    int us = colorOf(piece);
+    long fromBit = 1L << from;
+    long toBit = 1L << to;
+    boolean rightsChange = (unmoved & (fromBit | toBit)) != 0;
+    if (rightsChange) hash ^= Zobrist.CASTLING[castlingRights()];
+
+    if (captured != NO_PIECE) {
+      pieces[captured] &= ~toBit;
+      colors[1 - us] &= ~toBit;
+      hash ^= Zobrist.PIECES[captured][to];
+      midgameScore -= Evaluator.MIDGAME[captured][to];
+      endgameScore -= Evaluator.ENDGAME[captured][to];
+      phase -= Evaluator.PHASE_WEIGHTS[typeOf(captured)];
+    }
+    pieces[piece] ^= fromBit | toBit;
+    colors[us] ^= fromBit | toBit;
+    mailbox[from] = (byte) NO_PIECE;
+    mailbox[to] = (byte) piece;
+    hash ^= Zobrist.PIECES[piece][from] ^ Zobrist.PIECES[piece][to];
+    midgameScore += Evaluator.MIDGAME[piece][to] - Evaluator.MIDGAME[piece][from];
+    endgameScore += Evaluator.ENDGAME[piece][to] - Evaluator.ENDGAME[piece][from];
+    unmoved &= ~(fromBit | toBit);
+    if (rightsChange) hash ^= Zobrist.CASTLING[castlingRights()];
+    updateAttacks(fromBit | toBit);
+
+    boolean pawnMove = typeOf(piece) == PAWN;
+    hash ^= Zobrist.enPassant(enPassant);
+    enPassant = pawnMove && Math.abs(to - from) == 16 ? (from + to) >>> 1 : NO_SQUARE;
+    hash ^= Zobrist.enPassant(enPassant) ^ Zobrist.SIDE;
+    halfmoveClock = pawnMove || captured != NO_PIECE ? 0 : halfmoveClock + 1;
+    if (us == BLACK) fullmoveNumber++;
+    sideToMove = 1 - us;
+    if (hashChecking) checkHash();
+    if (evalChecking) checkEvaluation();
+  }
+
+  /**
+   * Records the state a move changes, so that unmakeMove can restore it and isRepetition can find
+   * its hash.
+   */
+  private void recordUndo() {
+    if (ply == undoState.length) growHistory(ply * 2);
+    undoHash[ply] = hash;
+    undoUnmoved[ply] = unmoved;
+    undoState[ply] = (enPassant + 1) | (halfmoveClock << 7);
+    ply++;
+  }
+
+  /**
+   * Grows the undo records to hold at least the provided number of plies.
+   * @param capacity the number of plies to hold
+   */
+  private void growHistory(int capacity) {
+    undoHash = Arrays.copyOf(undoHash, capacity);
+    undoUnmoved = Arrays.copyOf(undoUnmoved, capacity);
+    undoState = Arrays.copyOf(undoState, capacity);
+  }
+
+  /**
+   * Takes back the last move played with makeMove.
+   * @param move the packed move to take back
+   */
+  public void unmakeMove(int move) {
+    int from = Move.from(move);
+    int to = Move.to(move);
+    int piece = Move.piece(move);
+    int captured = Move.captured(move);
+    int us = colorOf(piece);
+    long fromBit = 1L << from;
+    long toBit = 1L << to;
+
+    pieces[piece] ^= fromBit | toBit;
+    colors[us] ^= fromBit | toBit;
+    mailbox[from] = (byte) piece;
+    mailbox[to] = (byte) captured;
+    midgameScore += Evaluator.MIDGAME[piece][from] - Evaluator.MIDGAME[piece][to];
+    endgameScore += Evaluator.ENDGAME[piece][from] - Evaluator.ENDGAME[piece][to];
+    if (captured != NO_PIECE) {
+      pieces[captured] |= toBit;
+      colors[1 - us] |= toBit;
+      midgameScore += Evaluator.MIDGAME[captured][to];
+      endgameScore += Evaluator.ENDGAME[captured][to];
+      phase += Evaluator.PHASE_WEIGHTS[typeOf(captured)];
+    }
+    updateAttacks(fromBit | toBit);
+
+    ply--;
+    hash = undoHash[ply];
+    unmoved = undoUnmoved[ply];
+    enPassant = (undoState[ply] & 127) - 1;
+    halfmoveClock = undoState[ply] >>> 7;
+    if (us == BLACK) fullmoveNumber--;
+    sideToMove = us;
+    if (hashChecking) checkHash();
+    if (evalChecking) checkEvaluation();
+  }
+
+  /**
+   * Returns whether the current position already occurred since the last capture or Pawn move
+   * among the moves played with makeMove or movePiece (or copied with copyWithHistoryFrom).
+   * @return true if the position is a repetition, false otherwise
+   */
+  public boolean isRepetition() {
+    int earliest = Math.max(0, ply - halfmoveClock);
+    for (int i = ply - 2; i >= earliest; i -= 2) {
+      if (undoHash[i] == hash) return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether a pseudo-legal move leaves the moving side's King out of check.
+   * @param move the packed move to test
+   * @return true if the move is legal, false otherwise
+   */
+  public boolean isLegal(int move) {
+    int us = colorOf(Move.piece(move));
+    makeMove(move);
+    boolean legal = !inCheck(us);
+    unmakeMove(move);
+    return legal;
+  }
+
+  /**
+   * Returns the code of the piece on the provided square.
+   * @param square the square to check
+   * @return the piece code, or NO_PIECE if the square is empty
+   */
+  public int pieceAt(int square) {
+    return mailbox[square];
+  }
+
+  /**
+   * Returns the squares occupied by pieces of the provided color and type.
+   * @param color the color of the pieces
+   * @param type the type of the pieces
+   * @return the occupancy mask of those pieces
+   */
+  public long pieces(int color, int type) {
+    return pieces[color * 6 + type];
+  }
+
+  /**
+   * Returns the squares occupied by the provided color.
+   * @param color the color of the pieces
+   * @return the occupancy mask of that color
+   */
+  public long occupancy(int color) {
+    return colors[color];
+  }
+
+  /**
+   * Returns the squares occupied by either color.
+   * @return the occupancy mask of all pieces
+   */
+  public long occupied() {
+    return colors[WHITE] | colors[BLACK];
+  }
+
+  /**
+   * Returns whether the piece on the provided square has moved. Pieces without a moved-flag
+   * (Knights, Bishops and Queens) always report true.
+   * @param square the square to check
+   * @return true if the piece has moved or is not tracked, false otherwise
+   */
+  public boolean hasMoved(int square) {
+    return (unmoved & (1L << square)) == 0;
+  }
+
+  /**
+   * Returns the mask of Kings, Rooks and Pawns that have not yet moved.
+   * @return the unmoved mask
+   */
+  public long getUnmoved() {
+    return unmoved;
+  }
+
+  /**
+   * Returns the castling rights implied by the unmoved Kings and Rooks on their home squares.
+   * @return a combination of the WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE and
+   *     BLACK_QUEENSIDE flags
+   */
+  public int castlingRights() {
+    int rights = 0;
+    long whiteKing = unmoved & pieces[KING] & (1L << 4);
+    long blackKing = unmoved & pieces[6 + KING] & (1L << 60);
+    if (whiteKing != 0) {
+      if ((unmoved & pieces[ROOK] & (1L << 7)) != 0) rights |= WHITE_KINGSIDE;
+      if ((unmoved & pieces[ROOK] & 1L) != 0) rights |= WHITE_QUEENSIDE;
+    }
+    if (blackKing != 0) {
+      if ((unmoved & pieces[6 + ROOK] & (1L << 63)) != 0) rights |= BLACK_KINGSIDE;
+      if ((unmoved & pieces[6 + ROOK] & (1L << 56)) != 0) rights |= BLACK_QUEENSIDE;
+    }
+    return rights;
+  }
+
+  public int getSideToMove() {
+    return sideToMove;
+  }
+
+  public void setSideToMove(int sideToMove) {
+    if (sideToMove != this.sideToMove) hash ^= Zobrist.SIDE;
+    this.sideToMove = sideToMove;
+  }
+
+  public int getEnPassant() {
+    return enPassant;
+  }
+
+  public void setEnPassant(int enPassant) {
+    hash ^= Zobrist.enPassant(this.enPassant) ^ Zobrist.enPassant(enPassant);
+    this.enPassant = enPassant;
+  }
+
+  public int getHalfmoveClock() {
+    return halfmoveClock;
+  }
+
+  public void setHalfmoveClock(int halfmoveClock) {
+    this.halfmoveClock = halfmoveClock;
+  }
+
+  public int getFullmoveNumber() {
+    return fullmoveNumber;
+  }
+
+  public void setFullmoveNumber(int fullmoveNumber) {
+    this.fullmoveNumber = fullmoveNumber;
+  }
+
+  /**
+   * Returns the Zobrist hash of this Position, which is kept up to date as pieces are put,
+   * removed and moved.
+   * @return the 64-bit hash of this Position
+   */
+  public long getHash() {
+    return hash;
+  }
+
+  /**
+   * Computes the Zobrist hash of this Position from scratch.
+   * @return the 64-bit hash of this Position
+   */
+  public long computeHash() {
+    long key = Zobrist.CASTLING[castlingRights()] ^ Zobrist.enPassant(enPassant);
+    if (sideToMove == BLACK) key ^= Zobrist.SIDE;
+    for (int square = 0; square < 64; square++) {
+      if (mailbox[square] != NO_PIECE) key ^= Zobrist.PIECES[mailbox[square]][square];
+    }
+    return key;
+  }
+
+  /**
+   * Checks that the incrementally updated hash matches a hash computed from scratch.
+   * @throws IllegalStateException if the hashes differ
+   */
+  public void checkHash() {
+    long expected = computeHash();
+    if (hash != expected) {
+      throw new IllegalStateException("Hash mismatch: " + Long.toHexString(hash)
+          + " != " + Long.toHexString(expected));
+    }
+  }
+
+  /**
+   * Returns the sum of the middlegame scores of every piece, from white's point of view.
+   * @return the middlegame score in centipawns
+   */
+  public int getMidgameScore() {
+    return midgameScore;
+  }
+
+  /**
+   * Returns the sum of the endgame scores of every piece, from white's point of view.
+   * @return the endgame score in centipawns
+   */
+  public int getEndgameScore() {
+    return endgameScore;
+  }
+
+  /**
+   * Returns the game phase, the sum of the phase weights of every piece on the board.
+   * @return the game phase (Evaluator.MAX_PHASE with all pieces on the board)
+   */
+  public int getPhase() {
+    return phase;
+  }
+
+  /**
+   * Checks that the incrementally updated evaluation matches one computed from scratch.
+   * @throws IllegalStateException if the evaluations differ
+   */
+  public void checkEvaluation() {
+    int incremental = Evaluator.evaluate(this);
+    int expected = Evaluator.evaluateFromScratch(this);
+    if (incremental != expected) {
+      throw new IllegalStateException("Evaluation mismatch: " + incremental + " != " + expected);
+    }
+  }
+
+  /**
+   * Returns the squares attacked by the piece on the provided square, regardless of what
+   * occupies them.
+   * @param square the square of the attacking piece
+   * @return the attacked squares, or 0 if the square is empty
+   */
+  public long attacksFrom(int square) {
+    int code = mailbox[square];
+    if (code == NO_PIECE) return 0L;
+    switch (typeOf(code)) {
+      case PAWN:
+        return Bitboards.pawnAttacks(colorOf(code), square);
+      case KNIGHT:
+        return Bitboards.knightAttacks(square);
+      case BISHOP:
+        return Bitboards.bishopAttacks(square, occupied());
+      case ROOK:
+        return Bitboards.rookAttacks(square, occupied());
+      case QUEEN:
+        return Bitboards.queenAttacks(square, occupied());
+      default:
+        return Bitboards.kingAttacks(square);
+    }
+  }
+
+  /**
+   * Returns the empty squares the piece on the provided square can move to. This is the bitboard
+   * equivalent of GamePiece.getMoves.
+   * @param square the square of the moving piece
+   * @return the non-capturing targets of the piece
+   */
+  public long movesFrom(int square) {
+    int code = mailbox[square];
+    if (code == NO_PIECE) return 0L;
+    long empty = ~occupied();
+    if (typeOf(code) != PAWN) return attacksFrom(square) & empty;
+
+    long b = 1L << square;
+    long single = (colorOf(code) == WHITE ? b << 8 : b >>> 8) & empty;
+    if (single == 0 || (unmoved & b) == 0) return single;
+    return single | ((colorOf(code) == WHITE ? single << 8 : single >>> 8) & empty);
+  }
+
+  /**
+   * Returns the enemy-occupied squares the piece on the provided square can capture on. This is
+   * the bitboard equivalent of GamePiece.getAttacks.
+   * @param square the square of the capturing piece
+   * @return the capturing targets of the piece
+   */
+  public long capturesFrom(int square) {
+    int code = mailbox[square];
+    if (code == NO_PIECE) return 0L;
+    return attacksFrom(square) & colors[1 - colorOf(code)];
+  }
+
+  /**
+   * Returns the pieces of the provided color that attack the provided square.
+   * @param square the square being attacked
+   * @param color the color of the attackers
+   * @return the squares of the attacking pieces
+   */
+  public long attackersTo(int square, int color) {
+    long occupied = occupied();
+    int base = color * 6;
+    long rookLike = pieces[base + ROOK] | pieces[base + QUEEN];
+    long bishopLike = pieces[base + BISHOP] | pieces[base + QUEEN];
+    return (Bitboards.pawnAttacks(1 - color, square) & pieces[base + PAWN])
+        | (Bitboards.knightAttacks(square) & pieces[base + KNIGHT])
+        | (Bitboards.kingAttacks(square) & pieces[base + KING])
+        | (Bitboards.rookAttacks(square, occupied) & rookLike)
+        | (Bitboards.bishopAttacks(square, occupied) & bishopLike);
+  }
+
+  /**
+   * Returns the pieces of either color that attack the provided square when only the provided
+   * squares are occupied. Pieces removed from the occupancy still appear in the result, so
+   * callers should mask it with the occupancy they passed.
+   * @param square the square being attacked
+   * @param occupied the squares to treat as occupied
+   * @return the squares of the attacking pieces
+   */
+  public long attackersTo(int square, long occupied) {
+    long rookLike = pieces[ROOK] | pieces[QUEEN] | pieces[6 + ROOK] | pieces[6 + QUEEN];
+    long bishopLike = pieces[BISHOP] | pieces[QUEEN] | pieces[6 + BISHOP] | pieces[6 + QUEEN];
+    return (Bitboards.pawnAttacks(BLACK, square) & pieces[PAWN])
+        | (Bitboards.pawnAttacks(WHITE, square) & pieces[6 + PAWN])
+        | (Bitboards.knightAttacks(square) & (pieces[KNIGHT] | pieces[6 + KNIGHT]))
+        | (Bitboards.kingAttacks(square) & (pieces[KING] | pieces[6 + KING]))
+        | (Bitboards.rookAttacks(square, occupied) & rookLike)
+        | (Bitboards.bishopAttacks(square, occupied) & bishopLike);
+  }
+
+  /**
+   * Returns whether the provided square is attacked by any piece of the provided color. This is a
+   * single lookup in the attack map of that color.
+   * @param square the square to check
+   * @param color the color of the attackers
+   * @return true if the square is attacked, false otherwise
+   */
+  public boolean isAttacked(int square, int color) {
+    return (attackMaps[color] & (1L << square)) != 0;
+  }
+
+  /**
+   * Returns every square attacked by the provided color, whether empty or occupied.
+   * @param color the color of the attackers
+   * @return the attack map of that color
+   */
+  public long attackMap(int color) {
+    return attackMaps[color];
+  }
+
+  /**
+   * Brings the per-square attack sets and per-color attack maps up to date after the contents of
+   * some squares changed. Only the pieces on the changed squares and the sliders whose previous
+   * attacks reached one of them (and so may now be blocked or unblocked) are recomputed.
+   * @param changed the squares whose contents changed
+   */
+  private void updateAttacks(long changed) {
+    long dirty = changed;
+    long sliders = (pieces[BISHOP] | pieces[ROOK] | pieces[QUEEN]
+        | pieces[6 + BISHOP] | pieces[6 + ROOK] | pieces[6 + QUEEN]) & ~changed;
+    while (sliders != 0) {
+      int square = Long.numberOfTrailingZeros(sliders);
+      sliders &= sliders - 1;
+      if ((squareAttacks[square] & changed) != 0) dirty |= 1L << square;
+    }
+    while (dirty != 0) {
+      int square = Long.numberOfTrailingZeros(dirty);
+      dirty &= dirty - 1;
+      squareAttacks[square] = attacksFrom(square);
+    }
+
+    for (int color = WHITE; color <= BLACK; color++) {
+      long map = 0L;
+      long occupancy = colors[color];
+      while (occupancy != 0) {
+        map |= squareAttacks[Long.numberOfTrailingZeros(occupancy)];
+        occupancy &= occupancy - 1;
+      }
+      attackMaps[color] = map;
+    }
+  }
+
+  /**
+   * Returns the square of the King of the provided color.
+   * @param color the color of the King
+   * @return the square of the King, or NO_SQUARE if there is none
+   */
+  public int kingSquare(int color) {
+    long king = pieces[color * 6 + KING];
+    return king == 0 ? NO_SQUARE : Long.numberOfTrailingZeros(king);
+  }
+
+  /**
+   * Returns whether the King of the provided color is attacked.
+   * @param color the color of the King
+   * @return true if the King is in check, false otherwise (including when there is no King)
+   */
+  public boolean inCheck(int color) {
+    int king = kingSquare(color);
+    return king != NO_SQUARE && isAttacked(king, 1 - color);
+  }
+
+  /**
+   * Copies the entire state of another Position into this one. The undo records of the other
+   * Position are not copied.
+   * @param other the Position to copy
+   */
+  public void copyFrom(Position other) {
+    System.arraycopy(other.pieces, 0, pieces, 0, 12);
+    System.arraycopy(other.colors, 0, colors, 0, 2);
+    System.arraycopy(other.mailbox, 0, mailbox, 0, 64);
+    System.arraycopy(other.squareAttacks, 0, squareAttacks, 0, 64);
+    System.arraycopy(other.attackMaps, 0, attackMaps, 0, 2);
+    unmoved = other.unmoved;
+    sideToMove = other.sideToMove;
+    enPassant = other.enPassant;
+    halfmoveClock = other.halfmoveClock;
+    fullmoveNumber = other.fullmoveNumber;
+    hash = other.hash;
+    midgameScore = other.midgameScore;
+    endgameScore = other.endgameScore;
+    phase = other.phase;
+    ply = 0;
+  }
+
+  /**
+   * Copies the entire state of another Position into this one, along with its undo records since
+   * the last capture or Pawn move, so that isRepetition also finds the positions that occurred
+   * before the copy.
+   * @param other the Position to copy
+   */
+  public void copyWithHistoryFrom(Position other) {
+    copyFrom(other);
+    int count = Math.min(other.ply, other.halfmoveClock);
+    if (count >= undoState.length) growHistory(count * 2);
+    System.arraycopy(other.undoHash, other.ply - count, undoHash, 0, count);
+    System.arraycopy(other.undoUnmoved, other.ply - count, undoUnmoved, 0, count);
+    System.arraycopy(other.undoState, other.ply - count, undoState, 0, count);
+    ply = count;
+  }
+
+  /**
+   * Generates and returns a copy of this Position.
+   * @return a copy of this Position
+   */
+  public Position copy() {
+    Position copy = new Position();
+    copy.copyFrom(this);
+    return copy;
+  }
+
+  /**
+   * Returns whether another object is a Position with identical pieces and state.
+   * @param other the object to compare against
+   * @return true if the positions are identical, false otherwise
+   */
+  public boolean equals(Object other) {
+    if (!(other instanceof Position)) return false;
+    Position that = (Position) other;
+    return Arrays.equals(pieces, that.pieces)
+        && unmoved == that.unmoved
+        && sideToMove == that.sideToMove
+        && enPassant == that.enPassant
+        && halfmoveClock == that.halfmoveClock
+        && fullmoveNumber == that.fullmoveNumber;
+  }
+
+  public int hashCode() {
+    return Long.hashCode(hash);
+  }
+}
@@ -8,14 +8,15 @@ import java.util.ArrayList;
 public class Queen extends GamePiece {
 
   private static final int POINT_VALUE = 9;
-  private String pieceColor;
+  private byte side;
   private Vector2 currPos;
 
   /**
-   * Creates a new Queen of the specified ASCII color.
+   * Creates a new Queen of the specified side.
+   * @param side Position.WHITE or Position.BLACK
    */
-  public Queen(String pieceColor) {
-    this.pieceColor = pieceColor;
+  public Queen(int side) {
+    this.side = (byte) side;
     this.currPos = new Vector2(-1, -1);
   }
 
@@ -30,37 +31,34 @@ public class Queen extends GamePiece {
   /**
    * Returns a list of valid moves for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of moves for this piece.
    */
-  public ArrayList<Vector2> getMoves(Board gameBoard) {
-    ArrayList<Vector2> moves = new ArrayList<>();
-    Rook tempRook = new Rook(this.getColor());
-    Bishop tempBishop = new Bishop(this.getColor());
-    moves.addAll(tempRook.getMoves(gameBoard));
-    moves.addAll(tempBishop.getMoves(gameBoard));
-    return moves;
+  public ArrayList<Vector2> getMoves(Board gameBoard, Vector2 currPos) {
+    long occupied = gameBoard.getPosition().occupied();
+    long targets = Bitboards.queenAttacks(Board.toSquare(currPos), occupied) & ~occupied;
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
    * Returns a list of valid attacks for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of attacks for this piece.
    */
-  public ArrayList<Vector2> getAttacks(Board gameBoard) {
-    ArrayList<Vector2> attacks = new ArrayList<>();
-    Rook tempRook = new Rook(this.getColor());
-    Bishop tempBishop = new Bishop(this.getColor());
-    attacks.addAll(tempRook.getAttacks(gameBoard));
-    attacks.addAll(tempBishop.getAttacks(gameBoard));
-    return attacks;
+  public ArrayList<Vector2> getAttacks(Board gameBoard, Vector2 currPos) {
+    Position position = gameBoard.getPosition();
+    long targets = Bitboards.queenAttacks(Board.toSquare(currPos), position.occupied())
+        & position.occupancy(1 - side);
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
-   * Returns the ASCII color of this piece.
-   * @return the ASCII color of this piece.
+   * Returns the side this piece plays for.
+   * @return Position.WHITE or Position.BLACK
    */
-  public String getColor() {
-    return pieceColor;
+  public int getSide() {
+    return side;
   }
 
   /**
@@ -68,7 +66,7 @@ public class Queen extends GamePiece {
    * @return a String representation of this piece.
    */
   public String toString() {
-    return pieceColor + "Q" + Chess.DEFAULT_COLOR;
+    return BoardRenderer.sideColor(side) + "Q" + Chess.DEFAULT_COLOR;
   }
 
   /**
@@ -84,7 +82,7 @@ public class Queen extends GamePiece {
    * @return a duplicate copy of this piece.
    */
   public GamePiece copy() {
-    Queen copy = new Queen(this.pieceColor);
+    Queen copy = new Queen(this.side);
     copy.currPos = this.currPos.deepCopy();
     return copy;
   }
@@ -8,16 +8,17 @@ import java.util.ArrayList;
 public class Rook extends GamePiece {
 
   private static final int POINT_VALUE = 5;
-  private String pieceColor;
+  private byte side;
   private boolean hasMoved;
   private Vector2 currPos;
 
   /**
-   * Creates a new Rook of the specified ASCII color.
+   * Creates a new Rook of the specified side.
+   * @param side Position.WHITE or Position.BLACK
    */
-  public Rook(String pieceColor) {
+  public Rook(int side) {
     this.hasMoved = false;
-    this.pieceColor = pieceColor;
+    this.side = (byte) side;
     this.currPos = new Vector2(-1, -1);
   }
 
@@ -32,124 +33,34 @@ public class Rook extends GamePiece {
   /**
    * Returns a list of valid moves for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of moves for this piece.
    */
-  public ArrayList<Vector2> getMoves(Board gameBoard) {
-    ArrayList<Vector2> moves = new ArrayList<>();
-    Vector2 currPos = gameBoard.getActivePos();
-    Vector2 tempMove;
-
-    // Left
-    for (int i = 1; i <= 7; i++) {
-      tempMove = new Vector2(currPos.getX() - i, currPos.getY());
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      } else {
-        break;
-      }
-    }
-
-    // Right
-    for (int i = 1; i <= 7; i++) {
-      tempMove = new Vector2(currPos.getX() + i, currPos.getY());
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      } else {
-        break;
-      }
-    }
-
-    // Up
-    for (int i = 1; i <= 7; i++) {
-      tempMove = new Vector2(currPos.getX(), currPos.getY() + i);
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      } else {
-        break;
-      }
-    }
-
-    // Down
-    for (int i = 1; i <= 7; i++) {
-      tempMove = new Vector2(currPos.getX(), currPos.getY() - i);
-      if (Board.posInBounds(tempMove) && gameBoard.posEmpty(tempMove)) {
-        moves.add(tempMove);
-      } else {
-        break;
-      }
-    }
-
-    return moves;
+  public ArrayList<Vector2> getMoves(Board gameBoard, Vector2 currPos) {
+    long occupied = gameBoard.getPosition().occupied();
+    long targets = Bitboards.rookAttacks(Board.toSquare(currPos), occupied) & ~occupied;
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
    * Returns a list of valid attacks for this piece.
    * @param gameBoard The Board containing this piece.
+   * @param currPos The position of this piece.
    * @return A valid list of attacks for this piece.
    */
-  public ArrayList<Vector2> getAttacks(Board gameBoard) {
-    ArrayList<Vector2> attacks = new ArrayList<>();
-    Vector2 currPos = gameBoard.getActivePos();
-    Vector2 tempAttack;
-    int i;
-
-    // Left
-    i = 1;
-    tempAttack = new Vector2(currPos.getX() - i, currPos.getY());
-    while (Board.posInBounds(tempAttack) && gameBoard.posEmpty(tempAttack)) {
-      i++;
-      tempAttack = new Vector2(currPos.getX() - i, currPos.getY());
-    }
-    if (Board.posInBounds(tempAttack)
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-      attacks.add(tempAttack);
-    }
-
-    // Right
-    i = 1;
-    tempAttack = new Vector2(currPos.getX() + i, currPos.getY());
-    while (Board.posInBounds(tempAttack) && gameBoard.posEmpty(tempAttack)) {
-      i++;
-      tempAttack = new Vector2(currPos.getX() + i, currPos.getY());
-    }
-    if (Board.posInBounds(tempAttack)
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-      attacks.add(tempAttack);
-    }
-
-    // Up
-    i = 1;
-    tempAttack = new Vector2(currPos.getX(), currPos.getY() + i);
-    while (Board.posInBounds(tempAttack) && gameBoard.posEmpty(tempAttack)) {
-      i++;
-      tempAttack = new Vector2(currPos.getX(), currPos.getY() + i);
-    }
-    if (Board.posInBounds(tempAttack)
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-      attacks.add(tempAttack);
-    }
-
-    // Down
-    i = 1;
-    tempAttack = new Vector2(currPos.getX(), currPos.getY() - i);
-    while (Board.posInBounds(tempAttack) && gameBoard.posEmpty(tempAttack)) {
-      i++;
-      tempAttack = new Vector2(currPos.getX(), currPos.getY() - i);
-    }
-    if (Board.posInBounds(tempAttack)
-        && !getColor().equals(gameBoard.getSquare(tempAttack).getPiece().getColor())) {
-      attacks.add(tempAttack);
-    }
-
-    return attacks;
+  public ArrayList<Vector2> getAttacks(Board gameBoard, Vector2 currPos) {
+    Position position = gameBoard.getPosition();
+    long targets = Bitboards.rookAttacks(Board.toSquare(currPos), position.occupied())
+        & position.occupancy(1 - side);
+    return addPositions(new ArrayList<>(), targets);
   }
 
   /**
-   * Returns the ASCII color of this piece.
-   * @return the ASCII color of this piece.
+   * Returns the side this piece plays for.
+   * @return Position.WHITE or Position.BLACK
    */
-  public String getColor() {
-    return pieceColor;
+  public int getSide() {
+    return side;
   }
 
   /**
@@ -157,7 +68,7 @@ public class Rook extends GamePiece {
    * @return a String representation of this piece.
    */
   public String toString() {
-    return pieceColor + "R" + Chess.DEFAULT_COLOR;
+    return BoardRenderer.sideColor(side) + "R" + Chess.DEFAULT_COLOR;
   }
 
   /**
@@ -178,7 +89,7 @@ public class Rook extends GamePiece {
    * @return a duplicate copy of this piece.
    */
   public GamePiece copy() {
-    Rook copy = new Rook(this.pieceColor);
+    Rook copy = new Rook(this.side);
     copy.currPos = this.currPos.deepCopy();
     copy.hasMoved = this.hasMoved;
     return copy;
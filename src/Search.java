@@ -0,0 +1,478 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Searches a Position for the best move using iterative deepening negamax with alpha-beta
+ * pruning. Results are shared between iterations (and between searches) through a
+ * TranspositionTable, and moves are ordered by a MovePicker using killer moves and a history
+ * table. At the end of each line a quiescence search keeps playing captures that do not lose
+ * material by static exchange evaluation, so positions are only scored once they are quiet.
+ * The search stops when it reaches the maximum depth, runs out of time or nodes, or is stopped
+ * from another thread. If an OpeningBook is set, a book move is played without searching, and if
+ * a Tablebase is set, positions it covers are scored from their tables.
+ *
+ * Progress is reported after each completed iteration as
+ * "info depth d score cp s nodes n nps r time t pv m1 m2 ...".
+ *
+ * With more than one thread, helper threads search the same root at the same time ("lazy SMP").
+ * Each helper has its own Search and its own copy of the Position; they only share the
+ * TranspositionTable, so their results speed up the main thread without any other coordination.
+ * The helpers are stopped as soon as the main thread finishes.
+ *
+ * @author Eligh Alvarez
+ */
+public class Search {
+
+  public static final int MATE = 30000;
+  public static final int INFINITY = 32000;
+  public static final int MAX_PLY = 128;
+
+  // Scores beyond this are mate scores
+  private static final int MATE_BOUND = MATE - MAX_PLY;
+
+  // History scores are halved once any of them grows past this
+  private static final int HISTORY_LIMIT = 1 << 20;
+
+  // The limits are checked once every this many nodes (plus one)
+  private static final int CHECK_INTERVAL = 2047;
+
+  private final TranspositionTable table;
+  private final MovePicker[] pickers;
+  private final int[][] killers;
+  private final int[][] history;
+  private final StaticExchange exchange;
+  private final int[][] pv;
+  private final int[] pvLength;
+  private PrintStream output;
+  private Search[] helpers;
+  private OpeningBook book;
+  private Tablebase tablebase;
+
+  private Position position;
+  private long nodes;
+  private long maxNodes;
+  private long startTime;
+  private long deadline;
+  private volatile boolean stopped;
+
+  private int bestMove;
+  private int bestScore;
+  private int completedDepth;
+
+  /**
+   * Creates a new Search that stores its results in the provided table.
+   * @param table the TranspositionTable to use
+   */
+  public Search(TranspositionTable table) {
+    this.table = table;
+    pickers = new MovePicker[MAX_PLY];
+    for (int i = 0; i < MAX_PLY; i++) pickers[i] = new MovePicker();
+    killers = new int[MAX_PLY][2];
+    history = new int[12][64];
+    exchange = new StaticExchange();
+    pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    pvLength = new int[MAX_PLY + 1];
+    output = System.out;
+    helpers = new Search[0];
+  }
+
+  /**
+   * Sets the number of threads used to search, including the calling thread.
+   * @param threads the number of threads (at least 1)
+   */
+  public void setThreads(int threads) {
+    helpers = new Search[Math.max(0, threads - 1)];
+    for (int i = 0; i < helpers.length; i++) {
+      helpers[i] = new Search(table);
+      helpers[i].setOutput(null);
+    }
+  }
+
+  /**
+   * Sets where progress lines are printed.
+   * @param output the stream to print to, or null to print nothing
+   */
+  public void setOutput(PrintStream output) {
+    this.output = output;
+  }
+
+  /**
+   * Asks a running search to stop as soon as possible. Safe to call from any thread.
+   */
+  public void stop() {
+    stopped = true;
+    for (Search helper : helpers) helper.stopped = true;
+  }
+
+  /**
+   * Sets the opening book consulted before searching. When the book has a move for the root
+   * position it is played immediately without searching.
+   * @param book the OpeningBook to use, or null to always search
+   */
+  public void setBook(OpeningBook book) {
+    this.book = book;
+  }
+
+  /**
+   * Sets the endgame tablebases probed during the search. Positions covered by a table are scored
+   * from it instead of being searched, and a covered root position is answered without searching.
+   * @param tablebase the Tablebase to probe, or null to search every position
+   */
+  public void setTablebase(Tablebase tablebase) {
+    this.tablebase = tablebase;
+  }
+
+  /**
+   * Searches the position of the provided Board.
+   * @param board the Board to search (left unchanged)
+   * @param maxDepth the maximum depth to search to
+   * @param timeMillis the time budget in milliseconds, or 0 for no limit
+   * @param maxNodes the node budget, or 0 for no limit
+   * @return the best move found, or Move.NONE if there are no legal moves
+   */
+  public int search(Board board, int maxDepth, long timeMillis, long maxNodes) {
+    return search(board.getPosition(), maxDepth, timeMillis, maxNodes);
+  }
+
+  /**
+   * Searches the provided Position.
+   * @param root the Position to search (left unchanged)
+   * @param maxDepth the maximum depth to search to
+   * @param timeMillis the time budget in milliseconds, or 0 for no limit
+   * @param maxNodes the node budget, or 0 for no limit
+   * @return the best move found, or Move.NONE if there are no legal moves
+   */
+  public int search(Position root, int maxDepth, long timeMillis, long maxNodes) {
+    prepare(root, timeMillis, maxNodes);
+    if (book != null) {
+      bestMove = book.probe(root);
+      if (bestMove != Move.NONE) {
+        if (output != null) output.println("info string book move " + Move.toString(bestMove));
+        return bestMove;
+      }
+    }
+    if (tablebase != null) {
+      bestMove = tablebase.bestMove(root);
+      if (bestMove != Move.NONE) {
+        position.makeMove(bestMove);
+        bestScore = -fromTable(tablebase.probe(position), 1);
+        position.unmakeMove(bestMove);
+        if (output != null) {
+          output.println("info string tablebase move " + Move.toString(bestMove)
+              + " score " + scoreString(bestScore));
+        }
+        return bestMove;
+      }
+    }
+    table.newSearch();
+
+    Thread[] threads = new Thread[helpers.length];
+    for (int i = 0; i < helpers.length; i++) {
+      final Search helper = helpers[i];
+      final int startDepth = 1 + (i & 1);
+      helper.tablebase = tablebase;
+      helper.prepare(root, timeMillis, 0);
+      threads[i] = new Thread(() -> helper.iterate(MAX_PLY - 1, startDepth));
+      threads[i].start();
+    }
+
+    iterate(maxDepth, 1);
+
+    for (Search helper : helpers) helper.stopped = true;
+    for (Thread thread : threads) {
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    if (bestMove == Move.NONE) bestMove = firstLegalMove();
+    return bestMove;
+  }
+
+  /**
+   * Resets this Search to start searching a copy of the provided Position. The copy keeps the
+   * Position's history since the last capture or Pawn move, so repetitions of positions played
+   * before the search are scored as draws.
+   * @param root the Position to search
+   * @param timeMillis the time budget in milliseconds, or 0 for no limit
+   * @param maxNodes the node budget, or 0 for no limit
+   */
+  private void prepare(Position root, long timeMillis, long maxNodes) {
+    position = new Position();
+    position.copyWithHistoryFrom(root);
+    nodes = 0;
+    this.maxNodes = maxNodes > 0 ? maxNodes : Long.MAX_VALUE;
+    startTime = System.currentTimeMillis();
+    deadline = timeMillis > 0 ? startTime + timeMillis : Long.MAX_VALUE;
+    stopped = false;
+    bestMove = Move.NONE;
+    bestScore = 0;
+    completedDepth = 0;
+    for (int[] plyKillers : killers) Arrays.fill(plyKillers, Move.NONE);
+    for (int[] pieceHistory : history) Arrays.fill(pieceHistory, 0);
+  }
+
+  /**
+   * Searches the prepared position to increasing depths until a limit is reached.
+   * @param maxDepth the last depth to search
+   * @param startDepth the first depth to search
+   */
+  private void iterate(int maxDepth, int startDepth) {
+    for (int depth = startDepth; depth <= Math.min(maxDepth, MAX_PLY - 1); depth++) {
+      int score = negamax(depth, -INFINITY, INFINITY, 0);
+      if (stopped) break;
+
+      bestMove = pvLength[0] > 0 ? pv[0][0] : Move.NONE;
+      bestScore = score;
+      completedDepth = depth;
+      report();
+      if (pvLength[0] == 0 || Math.abs(score) >= MATE_BOUND) break;
+    }
+  }
+
+  /**
+   * Searches the current position to the provided depth.
+   * @param depth the remaining depth
+   * @param alpha the lower bound of the search window
+   * @param beta the upper bound of the search window
+   * @param ply the distance from the root
+   * @return the score of the position from the side to move's point of view
+   */
+  private int negamax(int depth, int alpha, int beta, int ply) {
+    pvLength[ply] = ply;
+    if ((++nodes & CHECK_INTERVAL) == 0) checkLimits();
+    if (stopped) return 0;
+    if (ply > 0 && (position.getHalfmoveClock() >= 100 || position.isRepetition())) return 0;
+    if (ply >= MAX_PLY - 1) return Evaluator.evaluate(position);
+    if (tablebase != null && ply > 0
+        && Long.bitCount(position.occupied()) <= Tablebase.MAX_PIECES) {
+      int score = tablebase.probe(position);
+      if (score != Tablebase.NOT_FOUND) return fromTable(score, ply);
+    }
+
+    int us = position.getSideToMove();
+    boolean inCheck = position.inCheck(us);
+    if (inCheck) depth++;
+    if (depth <= 0) return quiesce(alpha, beta, ply);
+
+    long hash = position.getHash();
+    long entry = table.probe(hash);
+    int ttMove = Move.NONE;
+    if (entry != 0) {
+      ttMove = TranspositionTable.move(entry);
+      if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+        int score = fromTable(TranspositionTable.score(entry), ply);
+        int bound = TranspositionTable.bound(entry);
+        if (bound == TranspositionTable.BOUND_EXACT
+            || (bound == TranspositionTable.BOUND_LOWER && score >= beta)
+            || (bound == TranspositionTable.BOUND_UPPER && score <= alpha)) {
+          return score;
+        }
+      }
+    }
+
+    MovePicker picker = pickers[ply];
+    picker.init(position, ttMove, killers[ply][0], killers[ply][1], history);
+
+    int originalAlpha = alpha;
+    int best = -INFINITY;
+    int bestMoveHere = Move.NONE;
+    int legal = 0;
+    int move;
+    while ((move = picker.next()) != Move.NONE) {
+      position.makeMove(move);
+      if (position.inCheck(us)) {
+        position.unmakeMove(move);
+        continue;
+      }
+      legal++;
+      int score = -negamax(depth - 1, -beta, -alpha, ply + 1);
+      position.unmakeMove(move);
+      if (stopped) return 0;
+
+      if (score > best) {
+        best = score;
+        bestMoveHere = move;
+        if (score > alpha) {
+          alpha = score;
+          updatePv(ply, move);
+          if (alpha >= beta) {
+            if (!Move.isCapture(move)) updateQuietCutoff(ply, move, depth);
+            break;
+          }
+        }
+      }
+    }
+
+    if (legal == 0) return inCheck ? -MATE + ply : 0;
+
+    int bound = best >= beta ? TranspositionTable.BOUND_LOWER
+        : best > originalAlpha ? TranspositionTable.BOUND_EXACT : TranspositionTable.BOUND_UPPER;
+    table.store(hash, bestMoveHere, toTable(best, ply), depth, bound);
+    return best;
+  }
+
+  /**
+   * Searches only the captures of the current position that do not lose material, until the
+   * position is quiet. The side to move may always "stand pat" on the static evaluation instead
+   * of capturing.
+   * @param alpha the lower bound of the search window
+   * @param beta the upper bound of the search window
+   * @param ply the distance from the root
+   * @return the score of the position from the side to move's point of view
+   */
+  private int quiesce(int alpha, int beta, int ply) {
+    pvLength[ply] = ply;
+    if ((++nodes & CHECK_INTERVAL) == 0) checkLimits();
+    if (stopped) return 0;
+
+    int best = Evaluator.evaluate(position);
+    if (best >= beta || ply >= MAX_PLY - 1) return best;
+    if (best > alpha) alpha = best;
+
+    int us = position.getSideToMove();
+    MovePicker picker = pickers[ply];
+    picker.initCaptures(position);
+    int move;
+    while ((move = picker.next()) != Move.NONE) {
+      if (exchange.evaluate(position, move) < 0) continue;
+      position.makeMove(move);
+      if (position.inCheck(us)) {
+        position.unmakeMove(move);
+        continue;
+      }
+      int score = -quiesce(-beta, -alpha, ply + 1);
+      position.unmakeMove(move);
+      if (stopped) return 0;
+
+      if (score > best) {
+        best = score;
+        if (score > alpha) {
+          alpha = score;
+          updatePv(ply, move);
+          if (alpha >= beta) break;
+        }
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Records a quiet move that caused a beta cutoff as a killer move of its ply and raises its
+   * history score.
+   * @param ply the ply of the move
+   * @param move the quiet move
+   * @param depth the remaining depth at which it cut off
+   */
+  private void updateQuietCutoff(int ply, int move, int depth) {
+    if (killers[ply][0] != move) {
+      killers[ply][1] = killers[ply][0];
+      killers[ply][0] = move;
+    }
+    int[] pieceHistory = history[Move.piece(move)];
+    pieceHistory[Move.to(move)] += depth * depth;
+    if (pieceHistory[Move.to(move)] > HISTORY_LIMIT) {
+      for (int[] scores : history) {
+        for (int i = 0; i < 64; i++) scores[i] >>= 1;
+      }
+    }
+  }
+
+  /**
+   * Records a move as the start of the principal variation at the provided ply.
+   * @param ply the ply of the move
+   * @param move the move that raised alpha
+   */
+  private void updatePv(int ply, int move) {
+    pv[ply][ply] = move;
+    for (int i = ply + 1; i < pvLength[ply + 1]; i++) pv[ply][i] = pv[ply + 1][i];
+    pvLength[ply] = Math.max(pvLength[ply + 1], ply + 1);
+  }
+
+  /**
+   * Stops the search if it has used up its time or node budget.
+   */
+  private void checkLimits() {
+    if (nodes >= maxNodes || System.currentTimeMillis() >= deadline) stopped = true;
+  }
+
+  /**
+   * Returns the first legal move of the root position.
+   * @return the first legal move, or Move.NONE if there is none
+   */
+  private int firstLegalMove() {
+    int[] moves = new int[MoveGenerator.MAX_MOVES];
+    return MoveGenerator.generateLegal(position, moves, 0) > 0 ? moves[0] : Move.NONE;
+  }
+
+  /**
+   * Converts a score relative to the current ply into one relative to the stored position, so
+   * that mate scores stay correct when found again at a different ply.
+   */
+  private static int toTable(int score, int ply) {
+    if (score >= MATE_BOUND) return score + ply;
+    if (score <= -MATE_BOUND) return score - ply;
+    return score;
+  }
+
+  /**
+   * Converts a stored score back into one relative to the current ply.
+   */
+  private static int fromTable(int score, int ply) {
+    if (score >= MATE_BOUND) return score - ply;
+    if (score <= -MATE_BOUND) return score + ply;
+    return score;
+  }
+
+  /**
+   * Prints the progress line for the last completed iteration.
+   */
+  private void report() {
+    if (output == null) return;
+    long elapsed = Math.max(1, System.currentTimeMillis() - startTime);
+    long totalNodes = getNodes();
+    StringBuilder line = new StringBuilder("info depth ").append(completedDepth);
+    line.append(" score ").append(scoreString(bestScore));
+    line.append(" nodes ").append(totalNodes);
+    line.append(" nps ").append(totalNodes * 1000 / elapsed);
+    line.append(" time ").append(elapsed);
+    line.append(" pv");
+    for (int i = 0; i < pvLength[0]; i++) line.append(' ').append(Move.toString(pv[0][i]));
+    output.println(line);
+  }
+
+  /**
+   * Returns a score as "cp x" or, for mate scores, "mate n" where n is in moves.
+   * @param score the score to format
+   * @return the formatted score
+   */
+  public static String scoreString(int score) {
+    if (score >= MATE_BOUND) return "mate " + (MATE - score + 1) / 2;
+    if (score <= -MATE_BOUND) return "mate " + -(MATE + score) / 2;
+    return "cp " + score;
+  }
+
+  public int getBestMove() {
+    return bestMove;
+  }
+
+  public int getBestScore() {
+    return bestScore;
+  }
+
+  public int getCompletedDepth() {
+    return completedDepth;
+  }
+
+  /**
+   * Returns the number of nodes searched by every thread in the last search.
+   * @return the total number of nodes searched
+   */
+  public long getNodes() {
+    long total = nodes;
+    for (Search helper : helpers) total += helper.nodes;
+    return total;
+  }
+}
@@ -0,0 +1,85 @@
+/**
+ * Measures how the time a Search needs to reach a fixed depth scales with the number of threads.
+ * Every position of a fixed suite is searched to the same depth with 1, 2, 4 and 8 threads, each
+ * time with a freshly cleared TranspositionTable, and the total times are printed along with the
+ * speedup over one thread.
+ *
+ * @author Eligh Alvarez
+ */
+public class SmpBenchmark {
+
+  // Each suite position is reached by playing these moves from the starting position
+  private static final String[][] SUITE = {
+      {},
+      {"e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "g8f6"},
+      {"d2d4", "d7d5", "c2c4", "e7e6", "b1c3", "g8f6", "c1g5", "f8e7"},
+      {"e2e4", "c7c5", "g1f3", "d7d6", "d2d4", "c5d4", "f3d4", "g8f6", "b1c3", "a7a6"},
+      {"c2c4", "e7e5", "b1c3", "g8f6", "g2g3", "d7d5", "c4d5", "f6d5", "f1g2", "d5b6"},
+      {"e2e4", "e7e6", "d2d4", "d7d5", "b1c3", "f8b4", "e4e5", "c7c5", "a2a3", "b4c3",
+          "b2c3", "g8e7"}
+  };
+
+  private static final int[] THREAD_COUNTS = {1, 2, 4, 8};
+
+  /**
+   * Runs the benchmark.
+   * Usage: java SmpBenchmark [depth] [hashMB]
+   * @param args the optional search depth (default 7) and table size (default 64)
+   */
+  public static void main(String[] args) {
+    int depth = 7;
+    int megabytes = 64;
+    try {
+      if (args.length > 0) depth = Integer.parseInt(args[0]);
+      if (args.length > 1) megabytes = Integer.parseInt(args[1]);
+    } catch (NumberFormatException e) {
+      System.out.println("Usage: java SmpBenchmark [depth] [hashMB]");
+      return;
+    }
+
+    Position[] suite = buildSuite();
+    TranspositionTable table = new TranspositionTable(megabytes);
+    Search search = new Search(table);
+    search.setOutput(null);
+
+    System.out.println("Time to depth " + depth + " over " + suite.length + " positions on "
+        + Runtime.getRuntime().availableProcessors() + " available processors");
+    System.out.println("threads      time(ms)     nodes          speedup");
+    long baseline = 0;
+    for (int threads : THREAD_COUNTS) {
+      search.setThreads(threads);
+      long totalTime = 0;
+      long totalNodes = 0;
+      for (Position position : suite) {
+        table.clear();
+        long start = System.nanoTime();
+        search.search(position, depth, 0, 0);
+        totalTime += System.nanoTime() - start;
+        totalNodes += search.getNodes();
+      }
+      if (threads == 1) baseline = totalTime;
+      System.out.println(String.format("%-12d %-12d %-14d %.2f", threads, totalTime / 1000000,
+          totalNodes, (double) baseline / totalTime));
+    }
+  }
+
+  /**
+   * Plays out the move lists of the suite from the starting position.
+   * @return the suite positions
+   */
+  private static Position[] buildSuite() {
+    Board start = new Board();
+    new Chess(start);
+    Position[] suite = new Position[SUITE.length];
+    for (int i = 0; i < SUITE.length; i++) {
+      Position position = start.toPosition();
+      for (String text : SUITE[i]) {
+        int move = Move.parse(position, text);
+        if (move == Move.NONE) throw new IllegalStateException("Illegal suite move " + text);
+        position.movePiece(Move.from(move), Move.to(move));
+      }
+      suite[i] = position;
+    }
+    return suite;
+  }
+}
@@ -4,25 +4,23 @@
  * @author Eligh Alvarez
  */
 public class Square {
-  private String color;
   private GamePiece piece;
 
   /**
-   * Creates a new Square of the provided ASCII color and containing the provided piece
+   * Creates a new Square containing the provided piece. Its shade and highlight are worked out
+   * by the Board when it is rendered.
    * @param piece the piece to place on this Square
-   * @param color the color of this Square
    */
-  public Square(GamePiece piece, String color) {
+  public Square(GamePiece piece) {
     this.piece = piece;
-    this.color = color;
   }
 
   /**
    * Returns a String representation of this Square as "[X]", where X is the piece
    */
   public String toString() {
-    if (piece == null) return color + "[ ]" + Chess.DEFAULT_COLOR;
-    else return color + "[" + Chess.DEFAULT_COLOR + piece + color + "]" + Chess.DEFAULT_COLOR;
+    if (piece == null) return "[ ]";
+    else return "[" + piece + "]";
   }
 
   /**
@@ -40,20 +38,4 @@ public class Square {
   public GamePiece getPiece() {
     return piece;
   }
-
-  /**
-   * Sets the color of this Square
-   * @param color the new color of this Square
-   */
-  public void setColor(String color) {
-    this.color = color;
-  }
-
-  /**
-   * Returns the ASCII color of this Square
-   * @return the color of this Square
-   */
-  public String getColor() {
-    return color;
-  }
 }
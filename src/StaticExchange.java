@@ -0,0 +1,83 @@
+/**
+ * Estimates the material outcome of a capture without playing it on the board ("static exchange
+ * evaluation"). Both sides are assumed to keep recapturing on the target square with their least
+ * valuable attacker, including sliders uncovered behind earlier attackers, and either side may
+ * stop whenever continuing would lose material.
+ *
+ * Each StaticExchange keeps its own scratch buffer, so a search thread should create one and
+ * reuse it.
+ *
+ * @author Eligh Alvarez
+ */
+public class StaticExchange {
+
+  // Longest possible exchange: every piece on the board captures once
+  private static final int MAX_EXCHANGE = 34;
+
+  private final int[] gain;
+
+  /**
+   * Creates a new StaticExchange with its own scratch buffer.
+   */
+  public StaticExchange() {
+    gain = new int[MAX_EXCHANGE];
+  }
+
+  /**
+   * Returns the expected material gain of a capture for the side making it.
+   * @param position the position the capture is played in
+   * @param move the capture to evaluate
+   * @return the expected gain in centipawns (negative if the capture loses material)
+   */
+  public int evaluate(Position position, int move) {
+    int to = Move.to(move);
+    int side = Position.colorOf(Move.piece(move));
+    int attacker = Position.typeOf(Move.piece(move));
+    long occupied = position.occupied();
+    long fromSet = 1L << Move.from(move);
+    long attackers = position.attackersTo(to, occupied);
+    long bishopLike = position.pieces(Position.WHITE, Position.BISHOP)
+        | position.pieces(Position.BLACK, Position.BISHOP)
+        | position.pieces(Position.WHITE, Position.QUEEN)
+        | position.pieces(Position.BLACK, Position.QUEEN);
+    long rookLike = position.pieces(Position.WHITE, Position.ROOK)
+        | position.pieces(Position.BLACK, Position.ROOK)
+        | position.pieces(Position.WHITE, Position.QUEEN)
+        | position.pieces(Position.BLACK, Position.QUEEN);
+    int depth = 0;
+
+    gain[0] = Move.isCapture(move) ? Evaluator.PIECE_VALUES[Position.typeOf(Move.captured(move))]
+        : 0;
+    do {
+      depth++;
+      // Speculative gain if the piece that just captured is taken in turn
+      gain[depth] = Evaluator.PIECE_VALUES[attacker] - gain[depth - 1];
+
+      // Only a slider behind the piece that just moved, on the same line to the target, can join
+      occupied ^= fromSet;
+      int from = Long.numberOfTrailingZeros(fromSet);
+      if ((from & 7) == (to & 7) || (from >>> 3) == (to >>> 3)) {
+        attackers |= Bitboards.rookAttacks(to, occupied) & rookLike;
+      } else {
+        attackers |= Bitboards.bishopAttacks(to, occupied) & bishopLike;
+      }
+      attackers &= occupied;
+
+      fromSet = 0;
+      int capturer = (depth & 1) == 1 ? 1 - side : side;
+      for (int type = Position.PAWN; type <= Position.KING; type++) {
+        long candidates = attackers & position.pieces(capturer, type);
+        if (candidates != 0) {
+          fromSet = candidates & -candidates;
+          attacker = type;
+          break;
+        }
+      }
+    } while (fromSet != 0 && depth < MAX_EXCHANGE - 1);
+
+    while (--depth > 0) {
+      gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+    }
+    return gain[0];
+  }
+}
@@ -0,0 +1,368 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Probes endgame tablebases stored as files in a directory. Each file holds every placement of
+ * one set of material, such as "KQvKR.tb", with one byte per position giving the distance to mate
+ * under this game's rules (no castling, en passant or promotion, and a Pawn may push two squares
+ * exactly when it is on its second rank). A positive byte n means the side to move mates in
+ * 2n - 1 plies, a negative byte -n means it is mated in 2(n - 1) plies, and 0 means the position
+ * is drawn.
+ *
+ * The byte of a position is found at
+ *   ((sideToMove * 64 + square of piece 1) * 64 + square of piece 2) * 64 + ...
+ * where the white King comes first, followed by the other white pieces from Queen down to Pawn,
+ * then the black King and the other black pieces in the same order. Files are only written with
+ * the stronger side as white; positions where black is stronger are looked up with the board
+ * mirrored and the colors swapped. Files are written by TablebaseGenerator.
+ *
+ * Files are read through memory-mapped blocks. Only a small number of blocks are kept mapped at
+ * once, and the least recently used block is dropped when another is needed, so a directory of
+ * large tables costs little address space. Probing is synchronized so that several search threads
+ * can share one Tablebase.
+ *
+ * @author Eligh Alvarez
+ */
+public class Tablebase {
+
+  public static final int MAX_PIECES = 5;
+  public static final int NOT_FOUND = Integer.MIN_VALUE;
+  public static final String EXTENSION = ".tb";
+  public static final int DEFAULT_CACHED_BLOCKS = 64;
+
+  // Letters of the piece types, indexed by type
+  static final String PIECE_LETTERS = "PNBRQK";
+
+  private static final int BLOCK_SHIFT = 20;
+  private static final long BLOCK_MASK = (1L << BLOCK_SHIFT) - 1;
+
+  private final Path directory;
+  private final ArrayList<Table> tables;
+  private final long[] blockKeys;
+  private final MappedByteBuffer[] blocks;
+  private final long[] blockUses;
+  private long uses;
+
+  /**
+   * The file holding one set of material, as seen from one side.
+   */
+  private static final class Table {
+    final long material;
+    final int[] layout;
+    final boolean mirror;
+    final int id;
+    FileChannel channel;
+
+    Table(long material, int[] layout, boolean mirror, int id) {
+      this.material = material;
+      this.layout = layout;
+      this.mirror = mirror;
+      this.id = id;
+    }
+  }
+
+  /**
+   * Opens the tablebases in a directory, keeping DEFAULT_CACHED_BLOCKS blocks mapped at once.
+   * @param directory the directory holding the tablebase files
+   * @throws IOException if the directory does not exist
+   */
+  public Tablebase(Path directory) throws IOException {
+    this(directory, DEFAULT_CACHED_BLOCKS);
+  }
+
+  /**
+   * Opens the tablebases in a directory.
+   * @param directory the directory holding the tablebase files
+   * @param cachedBlocks the number of 1MB blocks to keep mapped at once (at least 1)
+   * @throws IOException if the directory does not exist
+   */
+  public Tablebase(Path directory, int cachedBlocks) throws IOException {
+    if (!Files.isDirectory(directory)) throw new IOException("Not a directory: " + directory);
+    this.directory = directory;
+    tables = new ArrayList<>();
+    blockKeys = new long[Math.max(1, cachedBlocks)];
+    blocks = new MappedByteBuffer[blockKeys.length];
+    blockUses = new long[blockKeys.length];
+  }
+
+  /**
+   * Returns the score of a Position from its tablebase, from the side to move's point of view.
+   * Wins and losses are scored like Search's mate scores, so a win in n plies is
+   * Search.MATE - n.
+   * @param position the Position to probe
+   * @return the score of the Position, or NOT_FOUND if there is no table for its material
+   */
+  public synchronized int probe(Position position) {
+    long occupied = position.occupied();
+    int count = Long.bitCount(occupied);
+    if (count > MAX_PIECES) return NOT_FOUND;
+    if (count == 2) return 0;
+
+    Table table = find(materialKey(position));
+    if (table.channel == null) return NOT_FOUND;
+    long index = index(position, table.layout, table.mirror);
+    int value;
+    try {
+      value = block(table, index >>> BLOCK_SHIFT).get((int) (index & BLOCK_MASK));
+    } catch (IOException e) {
+      return NOT_FOUND;
+    }
+    return score(value);
+  }
+
+  /**
+   * Returns the best move of a Position according to the tablebases: the fastest win, or else a
+   * draw, or else the slowest loss.
+   * @param position the Position to search (left unchanged)
+   * @return the best move, or Move.NONE if the Position or one of its successors is not covered
+   *     or there are no legal moves
+   */
+  public int bestMove(Position position) {
+    if (probe(position) == NOT_FOUND) return Move.NONE;
+    int[] moves = new int[MoveGenerator.MAX_MOVES];
+    int count = MoveGenerator.generateLegal(position, moves, 0);
+    int best = Move.NONE;
+    int bestScore = -Search.INFINITY;
+    for (int i = 0; i < count; i++) {
+      position.makeMove(moves[i]);
+      int score = probe(position);
+      position.unmakeMove(moves[i]);
+      if (score == NOT_FOUND) return Move.NONE;
+      if (-score > bestScore) {
+        bestScore = -score;
+        best = moves[i];
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Closes every open tablebase file and forgets which tables were found, so the next probe
+   * looks for each file again.
+   */
+  public synchronized void close() {
+    for (Table table : tables) {
+      try {
+        if (table.channel != null) table.channel.close();
+      } catch (IOException e) {
+        // Nothing more can be done with a file that fails to close
+      }
+      table.channel = null;
+    }
+    tables.clear();
+    Arrays.fill(blocks, null);
+  }
+
+  /**
+   * Converts a stored byte into a score.
+   * @param value the stored byte
+   * @return the score from the side to move's point of view
+   */
+  static int score(int value) {
+    if (value > 0) return Search.MATE - (2 * value - 1);
+    if (value < 0) return -Search.MATE + 2 * (-value - 1);
+    return 0;
+  }
+
+  /**
+   * Returns the table for a set of material, opening its file the first time it is needed. A
+   * file that is missing at that first lookup is remembered as absent until close, so tables
+   * generated while this Tablebase is open are only found once it is closed (or reopened).
+   * @param material the material key of the position
+   * @return the table, whose channel is null if the file does not exist
+   */
+  private Table find(long material) {
+    for (Table table : tables) {
+      if (table.material == material) return table;
+    }
+
+    boolean mirror = !isCanonical(material);
+    int[] layout = layout(mirror ? mirrorMaterial(material) : material);
+    Table table = new Table(material, layout, mirror, tables.size());
+    tables.add(table);
+    Path file = directory.resolve(name(layout) + EXTENSION);
+    try {
+      if (Files.isRegularFile(file) && Files.size(file) == tableSize(layout.length)) {
+        table.channel = FileChannel.open(file, StandardOpenOption.READ);
+      }
+    } catch (IOException e) {
+      table.channel = null;
+    }
+    return table;
+  }
+
+  /**
+   * Returns the mapped block of a table, mapping it if it is not already cached.
+   * @param table the table
+   * @param block the block number within the table's file
+   * @return the mapped block
+   * @throws IOException if the block cannot be mapped
+   */
+  private MappedByteBuffer block(Table table, long block) throws IOException {
+    long key = ((long) table.id << 32) | block;
+    int victim = 0;
+    for (int i = 0; i < blocks.length; i++) {
+      if (blocks[i] != null && blockKeys[i] == key) {
+        blockUses[i] = ++uses;
+        return blocks[i];
+      }
+      if (blockUses[i] < blockUses[victim]) victim = i;
+    }
+
+    long start = block << BLOCK_SHIFT;
+    long length = Math.min(BLOCK_MASK + 1, table.channel.size() - start);
+    blocks[victim] = table.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+    blockKeys[victim] = key;
+    blockUses[victim] = ++uses;
+    return blocks[victim];
+  }
+
+  /**
+   * Returns the size of a table file.
+   * @param pieces the number of pieces, including both Kings
+   * @return the number of positions (and bytes) in the table
+   */
+  static long tableSize(int pieces) {
+    return 2L << (6 * pieces);
+  }
+
+  /**
+   * Returns the key of a Position's material: four bits per piece code holding the number of
+   * pieces with that code.
+   * @param position the Position
+   * @return the material key
+   */
+  static long materialKey(Position position) {
+    long key = 0L;
+    for (int code = 0; code < 12; code++) {
+      long count = Long.bitCount(position.pieces(Position.colorOf(code), Position.typeOf(code)));
+      key |= count << (4 * code);
+    }
+    return key;
+  }
+
+  /**
+   * Returns the material key with the colors swapped.
+   * @param material the material key
+   * @return the material key with white's pieces given to black and black's to white
+   */
+  static long mirrorMaterial(long material) {
+    return (material >>> 24) | ((material & 0xFFFFFFL) << 24);
+  }
+
+  /**
+   * Determines whether white is at least as strong as black in a set of material, so that its
+   * table is stored as is rather than mirrored. The side with more pieces is stronger, then the
+   * side with more Queens, then Rooks, and so on down to Pawns.
+   * @param material the material key
+   * @return true if white is at least as strong as black
+   */
+  static boolean isCanonical(long material) {
+    return strength(material & 0xFFFFFFL) >= strength(material >>> 24);
+  }
+
+  /**
+   * Returns a number that orders one side's material by strength.
+   * @param side the 24 bits of a material key belonging to one side
+   * @return the strength of the side's material
+   */
+  private static long strength(long side) {
+    long strength = 0;
+    long pieces = 0;
+    for (int type = Position.QUEEN; type >= Position.PAWN; type--) {
+      long count = (side >>> (4 * type)) & 15;
+      pieces += count;
+      strength = (strength << 4) | count;
+    }
+    return (pieces << 20) | strength;
+  }
+
+  /**
+   * Returns the piece codes of a set of material in table order: the white King, the other white
+   * pieces from Queen down to Pawn, the black King, then the other black pieces.
+   * @param material the material key
+   * @return the piece codes of the table's slots
+   */
+  static int[] layout(long material) {
+    int count = 0;
+    for (int code = 0; code < 12; code++) count += (int) ((material >>> (4 * code)) & 15);
+    int[] layout = new int[count];
+    int slot = 0;
+    for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+      for (int type = Position.KING; type >= Position.PAWN; type--) {
+        int code = Position.pieceCode(color, type);
+        for (long n = (material >>> (4 * code)) & 15; n > 0; n--) layout[slot++] = code;
+      }
+    }
+    return layout;
+  }
+
+  /**
+   * Returns the name of a table, such as "KQvKR".
+   * @param layout the piece codes of the table's slots
+   * @return the name of the table
+   */
+  static String name(int[] layout) {
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i < layout.length; i++) {
+      if (i > 0 && layout[i] == Position.pieceCode(Position.BLACK, Position.KING)) {
+        name.append('v');
+      }
+      name.append(PIECE_LETTERS.charAt(Position.typeOf(layout[i])));
+    }
+    return name.toString();
+  }
+
+  /**
+   * Parses the name of a table.
+   * @param name the name of the table, such as "KQvKR"
+   * @return the material key of the table
+   * @throws IllegalArgumentException if the name is not a valid set of material
+   */
+  static long parseName(String name) {
+    String[] sides = name.toUpperCase().split("V");
+    if (sides.length != 2) throw new IllegalArgumentException("Bad table name: " + name);
+    long material = 0L;
+    for (int color = Position.WHITE; color <= Position.BLACK; color++) {
+      String side = sides[color];
+      if (side.indexOf('K') != 0 || side.lastIndexOf('K') != 0) {
+        throw new IllegalArgumentException("Each side needs exactly one King: " + name);
+      }
+      for (int i = 0; i < side.length(); i++) {
+        int type = PIECE_LETTERS.indexOf(side.charAt(i));
+        if (type < 0) throw new IllegalArgumentException("Bad piece in table name: " + name);
+        material += 1L << (4 * Position.pieceCode(color, type));
+      }
+    }
+    if (sides[0].length() + sides[1].length() > MAX_PIECES) {
+      throw new IllegalArgumentException("Tables hold at most " + MAX_PIECES + " pieces: " + name);
+    }
+    return material;
+  }
+
+  /**
+   * Returns the index of a Position within a table.
+   * @param position the Position
+   * @param layout the piece codes of the table's slots
+   * @param mirror true to look the Position up with the board mirrored and the colors swapped
+   * @return the index of the Position's byte
+   */
+  static long index(Position position, int[] layout, boolean mirror) {
+    int flip = mirror ? 1 : 0;
+    long index = position.getSideToMove() ^ flip;
+    long used = 0L;
+    for (int code : layout) {
+      long b = position.pieces(Position.colorOf(code) ^ flip, Position.typeOf(code)) & ~used;
+      int square = Long.numberOfTrailingZeros(b);
+      used |= 1L << square;
+      index = (index << 6) | (mirror ? square ^ 56 : square);
+    }
+    return index;
+  }
+}
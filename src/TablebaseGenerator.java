@@ -0,0 +1,528 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Writes the endgame tablebase files read by Tablebase, by retrograde analysis under this game's
+ * rules (no castling, en passant or promotion, so Pawns on the last rank are stuck).
+ *
+ * Every position of a table is first examined once: checkmates are lost at once, captures are
+ * scored from the smaller tables they lead to, and the other legal moves are counted. Then, one
+ * ply at a time, the positions that are won or lost at that distance are taken back a move. A
+ * position that can move into a loss is won one ply later, and a position whose every move has
+ * been found to lead into a win is lost one ply after its slowest such move. Whatever is still
+ * unresolved at the end is a draw.
+ *
+ * Tables of up to four pieces can be generated, which needs about 100MB of memory for the
+ * largest ones. Smaller tables that captures lead to are generated first if they are missing.
+ *
+ * @author Eligh Alvarez
+ */
+public class TablebaseGenerator {
+
+  public static final int MAX_PIECES = 4;
+
+  private final Path directory;
+  private final HashMap<Long, byte[]> loaded;
+
+  /**
+   * Generates tablebase files.
+   * Usage: java TablebaseGenerator directory [pieces | name]...
+   * @param args the output directory, followed by piece counts ("3" for every three piece table)
+   *     or table names ("KQvKR"); every three piece table is generated by default
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.out.println("Usage: java TablebaseGenerator directory [pieces | name]...");
+      return;
+    }
+    try {
+      Path directory = Paths.get(args[0]);
+      Files.createDirectories(directory);
+      TablebaseGenerator generator = new TablebaseGenerator(directory);
+      if (args.length == 1) generator.generateAll(3);
+      for (int i = 1; i < args.length; i++) {
+        if (Character.isDigit(args[i].charAt(0))) {
+          generator.generateAll(Integer.parseInt(args[i]));
+        } else {
+          generator.generate(Tablebase.parseName(args[i]));
+        }
+      }
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Could not generate tablebases: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Creates a generator writing to a directory.
+   * @param directory the directory to write tablebase files to
+   */
+  public TablebaseGenerator(Path directory) {
+    this.directory = directory;
+    loaded = new HashMap<>();
+  }
+
+  /**
+   * Generates every table with the provided number of pieces that does not already exist.
+   * @param pieces the number of pieces, including both Kings (3 or 4)
+   * @throws IOException if a table cannot be read or written
+   */
+  public void generateAll(int pieces) throws IOException {
+    if (pieces < 3 || pieces > MAX_PIECES) {
+      throw new IllegalArgumentException("Tables can have from 3 to " + MAX_PIECES + " pieces");
+    }
+    ArrayList<Long> materials = new ArrayList<>();
+    addMaterials(materials, pieces - 2, 0, 0L);
+    for (long material : materials) generate(material);
+  }
+
+  /**
+   * Lists every canonical set of material with the provided number of pieces besides the Kings.
+   * @param materials the list to add the material keys to
+   * @param remaining the number of pieces still to place
+   * @param firstCode the lowest piece code that may still be added, so each set is listed once
+   * @param material the material placed so far, without the Kings
+   */
+  private static void addMaterials(ArrayList<Long> materials, int remaining, int firstCode,
+      long material) {
+    if (remaining == 0) {
+      long withKings = material
+          + (1L << (4 * Position.pieceCode(Position.WHITE, Position.KING)))
+          + (1L << (4 * Position.pieceCode(Position.BLACK, Position.KING)));
+      if (Tablebase.isCanonical(withKings)) materials.add(withKings);
+      return;
+    }
+    for (int code = firstCode; code < 12; code++) {
+      if (Position.typeOf(code) == Position.KING) continue;
+      addMaterials(materials, remaining - 1, code, material + (1L << (4 * code)));
+    }
+  }
+
+  /**
+   * Generates the table for a set of material unless its file already exists.
+   * @param material the material key of the table
+   * @return the values of the table
+   * @throws IOException if a table cannot be read or written
+   */
+  public byte[] generate(long material) throws IOException {
+    if (!Tablebase.isCanonical(material)) material = Tablebase.mirrorMaterial(material);
+    byte[] values = loaded.get(material);
+    if (values != null) return values;
+
+    int[] layout = Tablebase.layout(material);
+    if (layout.length > MAX_PIECES) {
+      throw new IllegalArgumentException("Tables can have at most " + MAX_PIECES + " pieces");
+    }
+    Path file = directory.resolve(Tablebase.name(layout) + Tablebase.EXTENSION);
+    if (Files.isRegularFile(file) && Files.size(file) == Tablebase.tableSize(layout.length)) {
+      values = Files.readAllBytes(file);
+    } else {
+      long start = System.currentTimeMillis();
+      values = new Solver(layout, material).solve();
+      Files.write(file, values);
+      report(Tablebase.name(layout), values, System.currentTimeMillis() - start);
+    }
+    loaded.put(material, values);
+    return values;
+  }
+
+  /**
+   * Prints a summary of a generated table.
+   * @param name the name of the table
+   * @param values the values of the table
+   * @param millis the time taken to generate the table
+   */
+  private static void report(String name, byte[] values, long millis) {
+    long wins = 0;
+    long losses = 0;
+    int longest = 0;
+    for (byte value : values) {
+      if (value > 0) wins++;
+      if (value < 0) losses++;
+      longest = Math.max(longest, value > 0 ? 2 * value - 1 : value < 0 ? 2 * (-value - 1) : 0);
+    }
+    System.out.println(name + ": " + wins + " wins, " + losses + " losses, longest mate "
+        + longest + " plies, " + millis + " ms");
+  }
+
+  /**
+   * Solves a single table. Positions are handled as arrays of squares in the table's slot order
+   * rather than as Positions, which keeps the billions of move steps of a four piece table cheap.
+   */
+  private final class Solver {
+
+    private final int[] layout;
+    private final int pieces;
+    private final int size;
+    private final byte[] values;
+    private final byte[] counts;
+    private final byte[] captureLosses;
+
+    // Per captured slot: the table the capture leads to and how its slots map to ours
+    private final byte[][] captureTables;
+    private final boolean[] captureMirrors;
+    private final int[][] captureSlots;
+
+    private final int[] squares;
+
+    /**
+     * Prepares to solve a table, generating the tables its captures lead to first.
+     * @param layout the piece codes of the table's slots
+     * @param material the material key of the table
+     * @throws IOException if a smaller table cannot be read or written
+     */
+    Solver(int[] layout, long material) throws IOException {
+      this.layout = layout;
+      pieces = layout.length;
+      size = (int) Tablebase.tableSize(pieces);
+      values = new byte[size];
+      counts = new byte[size];
+      captureLosses = new byte[size];
+      squares = new int[pieces];
+
+      captureTables = new byte[pieces][];
+      captureMirrors = new boolean[pieces];
+      captureSlots = new int[pieces][];
+      for (int slot = 0; slot < pieces; slot++) {
+        if (Position.typeOf(layout[slot]) == Position.KING || pieces == 3) continue;
+        long remaining = material - (1L << (4 * layout[slot]));
+        boolean mirror = !Tablebase.isCanonical(remaining);
+        captureTables[slot] = generate(remaining);
+        captureMirrors[slot] = mirror;
+
+        // Our remaining slots in the order of the smaller table: whites first unless mirrored
+        int[] order = new int[pieces - 1];
+        int next = 0;
+        for (int pass = 0; pass < 2; pass++) {
+          int color = (pass == 0) == !mirror ? Position.WHITE : Position.BLACK;
+          for (int other = 0; other < pieces; other++) {
+            if (other != slot && Position.colorOf(layout[other]) == color) order[next++] = other;
+          }
+        }
+        captureSlots[slot] = order;
+      }
+    }
+
+    /**
+     * Solves the table.
+     * @return the value of every position
+     */
+    byte[] solve() {
+      int lastPly = 0;
+      for (int index = 0; index < size; index++) {
+        if (decode(index) && isValid(index >>> (6 * pieces))) {
+          lastPly = Math.max(lastPly, examine(index));
+        }
+      }
+
+      // Distances beyond 253 plies do not fit in a byte and are left as draws
+      for (int ply = 0; ply <= lastPly && ply < 253; ply++) {
+        byte target = encode(ply);
+        for (int index = 0; index < size; index++) {
+          if (values[index] != target) continue;
+          decode(index);
+          lastPly = Math.max(lastPly, retract(index >>> (6 * pieces), ply));
+        }
+      }
+      return values;
+    }
+
+    /**
+     * Examines the moves of a position: finds checkmate and stalemate, scores the captures and
+     * counts the other moves.
+     * @param index the index of the position, already decoded into the squares
+     * @return the ply at which the position was resolved, or 0
+     */
+    private int examine(int index) {
+      int us = index >>> (6 * pieces);
+      long occupied = occupied();
+      long ours = occupancy(us);
+      int legal = 0;
+      int quiet = 0;
+      int bestWin = Integer.MAX_VALUE;
+      int worstLoss = 0;
+      boolean drawn = false;
+
+      for (int slot = 0; slot < pieces; slot++) {
+        if (Position.colorOf(layout[slot]) != us) continue;
+        int from = squares[slot];
+        for (long targets = targets(slot, occupied) & ~ours; targets != 0;
+            targets &= targets - 1) {
+          int to = Long.numberOfTrailingZeros(targets);
+          int captured = slotAt(to);
+          squares[slot] = to;
+          boolean ok = !kingAttacked(us, captured);
+          if (ok) {
+            legal++;
+            if (captured < 0) {
+              quiet++;
+            } else {
+              int value = captureValue(captured, us);
+              if (value < 0) bestWin = Math.min(bestWin, 2 * (-value - 1) + 1);
+              else if (value > 0) worstLoss = Math.max(worstLoss, 2 * value);
+              else drawn = true;
+            }
+          }
+          squares[slot] = from;
+        }
+      }
+
+      counts[index] = (byte) (quiet + (drawn ? 1 : 0));
+      captureLosses[index] = (byte) worstLoss;
+      if (legal == 0) {
+        if (kingAttacked(us, -1)) values[index] = encode(0);
+        return 0;
+      }
+      if (bestWin != Integer.MAX_VALUE) {
+        values[index] = encode(bestWin);
+        return bestWin;
+      }
+      if (quiet == 0 && !drawn) {
+        values[index] = encode(worstLoss);
+        return worstLoss;
+      }
+      return 0;
+    }
+
+    /**
+     * Takes back every non-capturing move that leads into a resolved position, and resolves the
+     * positions it leads back to where possible.
+     * @param us the side to move in the resolved position, already decoded into the squares
+     * @param ply the distance at which the position is resolved
+     * @return the largest ply at which a position was resolved
+     */
+    private int retract(int us, int ply) {
+      int them = 1 - us;
+      boolean lost = (ply & 1) == 0;
+      long occupied = occupied();
+      int lastPly = ply;
+
+      for (int slot = 0; slot < pieces; slot++) {
+        if (Position.colorOf(layout[slot]) != them) continue;
+        int to = squares[slot];
+        for (long origins = origins(slot, occupied); origins != 0; origins &= origins - 1) {
+          squares[slot] = Long.numberOfTrailingZeros(origins);
+          if (!kingAttacked(us, -1)) {
+            int previous = index(them);
+            byte value = values[previous];
+            if (lost) {
+              if (value == 0 || (value > 0 && value > encode(ply + 1))) {
+                values[previous] = encode(ply + 1);
+                lastPly = Math.max(lastPly, ply + 1);
+              }
+            } else if (value == 0 && --counts[previous] == 0) {
+              int lossPly = Math.max(ply + 1, captureLosses[previous] & 0xFF);
+              values[previous] = encode(lossPly);
+              lastPly = Math.max(lastPly, lossPly);
+            }
+          }
+          squares[slot] = to;
+        }
+      }
+      return lastPly;
+    }
+
+    /**
+     * Returns the value of the position a capture leads to, from the capturing side's opponent's
+     * point of view, with the capturing piece already on its target square.
+     * @param captured the slot of the captured piece
+     * @param us the capturing side
+     * @return the stored byte of the position after the capture
+     */
+    private int captureValue(int captured, int us) {
+      if (captureTables[captured] == null) return 0;
+      boolean mirror = captureMirrors[captured];
+      int index = (1 - us) ^ (mirror ? 1 : 0);
+      for (int slot : captureSlots[captured]) {
+        index = (index << 6) | (mirror ? squares[slot] ^ 56 : squares[slot]);
+      }
+      return captureTables[captured][index];
+    }
+
+    /**
+     * Returns the squares a piece may move to, ignoring the pieces of its own color and legality.
+     * @param slot the slot of the piece
+     * @param occupied the occupied squares
+     * @return the target squares
+     */
+    private long targets(int slot, long occupied) {
+      int code = layout[slot];
+      int color = Position.colorOf(code);
+      int square = squares[slot];
+      if (Position.typeOf(code) != Position.PAWN) return attacks(code, square, occupied);
+
+      long pushes = pawnPush(color, Bitboards.bit(square)) & ~occupied;
+      if ((square >>> 3) == (color == Position.WHITE ? 1 : 6)) {
+        pushes |= pawnPush(color, pushes) & ~occupied;
+      }
+      return pushes | (Bitboards.pawnAttacks(color, square) & occupancy(1 - color));
+    }
+
+    /**
+     * Returns the empty squares a piece may have moved from without capturing.
+     * @param slot the slot of the piece
+     * @param occupied the occupied squares
+     * @return the origin squares
+     */
+    private long origins(int slot, long occupied) {
+      int code = layout[slot];
+      int color = Position.colorOf(code);
+      int square = squares[slot];
+      if (Position.typeOf(code) != Position.PAWN) {
+        return attacks(code, square, occupied) & ~occupied;
+      }
+
+      // Pawns never stand on their own first rank, and only double push from their second
+      int back = 1 - color;
+      long single = pawnPush(back, Bitboards.bit(square)) & ~occupied
+          & ~(color == Position.WHITE ? Bitboards.RANK_1 : Bitboards.RANK_8);
+      long twice = (square >>> 3) == (color == Position.WHITE ? 3 : 4)
+          ? pawnPush(back, single) & ~occupied : 0L;
+      return single | twice;
+    }
+
+    /**
+     * Moves a set of squares one rank forward for a color.
+     * @param color the color moving forward
+     * @param squares the squares to move
+     * @return the squares one rank ahead
+     */
+    private long pawnPush(int color, long squares) {
+      return color == Position.WHITE ? squares << 8 : squares >>> 8;
+    }
+
+    /**
+     * Returns the squares attacked by a piece.
+     * @param code the piece code
+     * @param square the square of the piece
+     * @param occupied the occupied squares
+     * @return the attacked squares
+     */
+    private long attacks(int code, int square, long occupied) {
+      switch (Position.typeOf(code)) {
+        case Position.PAWN:
+          return Bitboards.pawnAttacks(Position.colorOf(code), square);
+        case Position.KNIGHT:
+          return Bitboards.knightAttacks(square);
+        case Position.BISHOP:
+          return Bitboards.bishopAttacks(square, occupied);
+        case Position.ROOK:
+          return Bitboards.rookAttacks(square, occupied);
+        case Position.QUEEN:
+          return Bitboards.queenAttacks(square, occupied);
+        default:
+          return Bitboards.kingAttacks(square);
+      }
+    }
+
+    /**
+     * Determines whether a side's King is attacked.
+     * @param color the side whose King to check
+     * @param captured the slot of a piece that has just been captured and is ignored, or -1
+     * @return true if the King is attacked
+     */
+    private boolean kingAttacked(int color, int captured) {
+      long occupied = 0L;
+      int king = 0;
+      for (int slot = 0; slot < pieces; slot++) {
+        if (slot == captured) continue;
+        occupied |= 1L << squares[slot];
+        if (layout[slot] == Position.pieceCode(color, Position.KING)) king = squares[slot];
+      }
+      for (int slot = 0; slot < pieces; slot++) {
+        if (slot == captured || Position.colorOf(layout[slot]) == color) continue;
+        if ((attacks(layout[slot], squares[slot], occupied) & (1L << king)) != 0) return true;
+      }
+      return false;
+    }
+
+    /**
+     * Determines whether the decoded position could be reached: the side that just moved may not
+     * be in check, and no Pawn may stand on its own first rank.
+     * @param us the side to move
+     * @return true if the position is valid
+     */
+    private boolean isValid(int us) {
+      for (int slot = 0; slot < pieces; slot++) {
+        if (Position.typeOf(layout[slot]) != Position.PAWN) continue;
+        int rank = squares[slot] >>> 3;
+        if (rank == (Position.colorOf(layout[slot]) == Position.WHITE ? 0 : 7)) return false;
+      }
+      return !kingAttacked(1 - us, -1);
+    }
+
+    /**
+     * Decodes the squares of a position.
+     * @param index the index of the position
+     * @return false if two pieces share a square
+     */
+    private boolean decode(int index) {
+      long occupied = 0L;
+      for (int slot = pieces - 1; slot >= 0; slot--) {
+        squares[slot] = index & 63;
+        index >>>= 6;
+        if ((occupied & (1L << squares[slot])) != 0) return false;
+        occupied |= 1L << squares[slot];
+      }
+      return true;
+    }
+
+    /**
+     * Returns the index of the current squares.
+     * @param sideToMove the side to move
+     * @return the index of the position
+     */
+    private int index(int sideToMove) {
+      int index = sideToMove;
+      for (int slot = 0; slot < pieces; slot++) index = (index << 6) | squares[slot];
+      return index;
+    }
+
+    /**
+     * Returns the slot of the piece on a square.
+     * @param square the square
+     * @return the slot, or -1 if the square is empty
+     */
+    private int slotAt(int square) {
+      for (int slot = 0; slot < pieces; slot++) {
+        if (squares[slot] == square) return slot;
+      }
+      return -1;
+    }
+
+    /**
+     * Returns the occupied squares.
+     * @return the occupied squares
+     */
+    private long occupied() {
+      long occupied = 0L;
+      for (int square : squares) occupied |= 1L << square;
+      return occupied;
+    }
+
+    /**
+     * Returns the squares occupied by one side.
+     * @param color the side
+     * @return the squares occupied by the side's pieces
+     */
+    private long occupancy(int color) {
+      long occupied = 0L;
+      for (int slot = 0; slot < pieces; slot++) {
+        if (Position.colorOf(layout[slot]) == color) occupied |= 1L << squares[slot];
+      }
+      return occupied;
+    }
+  }
+
+  /**
+   * Converts a distance to mate into a stored byte.
+   * @param ply the distance in plies: odd for a win of the side to move, even for a loss
+   * @return the stored byte
+   */
+  private static byte encode(int ply) {
+    return (byte) ((ply & 1) != 0 ? (ply + 1) / 2 : -(ply / 2) - 1);
+  }
+}
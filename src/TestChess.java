@@ -1,9 +1,50 @@
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.Scanner;
 
 public class TestChess {
+  // Positions the random playouts start from, after the game's own starting position
+  private static final String[] PLAYOUT_FENS = {
+      "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 0 9",
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+      "8/5pk1/6p1/2R5/p4P2/r5P1/6K1/8 b - - 0 45",
+      "4k3/8/8/3q4/8/2N5/8/R3K3 w - - 0 1"
+  };
+
+  // Positions and their Polyglot keys, from the test positions published with the format
+  private static final String[] BOOK_FENS = {
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+      "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+      "rnbqkbnr/ppp1pppp/8/3p4/4P3/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 2",
+      "rnbqkbnr/ppp1pppp/8/3pP3/8/8/PPPP1PPP/RNBQKBNR b KQkq - 0 2",
+      "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+      "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR b kq - 0 3",
+      "rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4",
+      "rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3",
+      "rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4"
+  };
+  private static final long[] BOOK_KEYS = {
+      0x463B96181691FC9CL, 0x823C9B50FD114196L, 0x0756B94461C50FB0L, 0x662FAFB965DB29D4L,
+      0x22A48B5A8E47FF78L, 0x652A607CA3F242C1L, 0x00FDD303C946BDD9L, 0x3C8123EA7B067637L,
+      0x5C3F9B829B279560L
+  };
+
   public static void main(String[] args) {
+    if (args.length > 0 && args[0].equals("playout")) {
+      playout(args);
+      return;
+    }
+    if (args.length > 0 && args[0].equals("book")) {
+      bookKeys();
+      return;
+    }
+    if (args.length > 0 && args[0].equals("repetition")) {
+      repetition();
+      return;
+    }
     Board gameBoard = new Board();
     Chess game = new Chess(gameBoard);
     File testFile = new File("TestInput.txt");
@@ -21,6 +62,21 @@ public class TestChess {
           case "adjust":
             game.enterAdjustMode(fileScanner);
             break;
+          case "perft":
+            game.executePerft(fileScanner);
+            break;
+          case "search":
+            game.executeSearch(fileScanner);
+            break;
+          case "book":
+            game.executeBook(fileScanner);
+            break;
+          case "tablebase":
+            game.executeTablebase(fileScanner);
+            break;
+          case "fen":
+            game.executeFen(fileScanner);
+            break;
           case "exit":
             exit = true;
             break;
@@ -34,4 +90,114 @@ public class TestChess {
       System.out.println(testFile + " could not be located!");
     }
   }
-}
\ No newline at end of file
+
+  /**
+   * Plays seeded random games from the starting position and from each of PLAYOUT_FENS, then
+   * takes every move back and checks that the position is exactly where it started. The arguments
+   * are "playout" followed by any of "games n", "plies n", "seed n", "hash" and "eval". These
+   * turn on Position.setHashChecking and Position.setEvalChecking, so every makeMove and
+   * unmakeMove also verifies the hash or the incremental evaluation against a full recompute.
+   * @param args the command line arguments
+   * @throws IllegalStateException if a position is not restored or a check fails
+   */
+  private static void playout(String[] args) {
+    int games = 100;
+    int plies = 300;
+    long seed = 1;
+    for (int i = 1; i < args.length; i++) {
+      if (args[i].equals("games") && i + 1 < args.length) games = Integer.parseInt(args[++i]);
+      else if (args[i].equals("plies") && i + 1 < args.length) plies = Integer.parseInt(args[++i]);
+      else if (args[i].equals("seed") && i + 1 < args.length) seed = Long.parseLong(args[++i]);
+      else if (args[i].equals("hash")) Position.setHashChecking(true);
+      else if (args[i].equals("eval")) Position.setEvalChecking(true);
+      else throw new IllegalArgumentException("Unknown playout option: " + args[i]);
+    }
+
+    Board board = new Board();
+    new Chess(board);
+    Position[] starts = new Position[PLAYOUT_FENS.length + 1];
+    starts[0] = board.getPosition().copy();
+    for (int i = 0; i < PLAYOUT_FENS.length; i++) starts[i + 1] = Fen.parse(PLAYOUT_FENS[i]);
+
+    Random random = new Random(seed);
+    int[] moves = new int[MoveGenerator.MAX_MOVES];
+    int[] played = new int[plies];
+    long total = 0;
+    for (int game = 0; game < games; game++) {
+      Position start = starts[game % starts.length];
+      Position position = start.copy();
+      int length = 0;
+      while (length < plies) {
+        int count = MoveGenerator.generateLegal(position, moves, 0);
+        if (count == 0) break;
+        played[length] = moves[random.nextInt(count)];
+        position.makeMove(played[length++]);
+      }
+      total += length;
+      while (length > 0) position.unmakeMove(played[--length]);
+      if (!position.equals(start) || position.getHash() != start.getHash()
+          || Evaluator.evaluate(position) != Evaluator.evaluate(start)) {
+        throw new IllegalStateException("Game " + game + " did not unmake back to its start "
+            + Fen.toFen(start) + ", ended at " + Fen.toFen(position) + " with evaluation "
+            + Evaluator.evaluate(position) + " instead of " + Evaluator.evaluate(start));
+      }
+    }
+    System.out.println("Playouts passed: " + games + " games, " + total + " plies");
+  }
+
+  /**
+   * Checks that a search through a Board sees the positions played on that Board before the
+   * search: a side a Queen down that can repeat an earlier position must take the draw. Then
+   * plays a short match from won endgames at a depth where an engine blind to the game's history
+   * shuffles into a threefold repetition, and checks that the winning side mates every game.
+   * @throws IllegalStateException if the repetition is not found or a won game is not won
+   */
+  private static void repetition() {
+    Board board = new Board();
+    board.loadFen("rnb1kb1r/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+    for (String name : new String[] {"b1c3", "b8c6", "c3b1"}) {
+      int move = Move.parse(board.getPosition(), name);
+      board.movePiece(Board.toPos(Move.from(move)), Board.toPos(Move.to(move)));
+    }
+    Search search = new Search(new TranspositionTable(16));
+    search.setOutput(null);
+    int move = search.search(board, 3, 0, 0);
+    if (search.getBestScore() != 0) {
+      throw new IllegalStateException("Search missed the repetition: " + Move.toString(move)
+          + " scored " + search.getBestScore());
+    }
+    System.out.println("Repetition passed: " + Move.toString(move) + " draws");
+
+    MatchRunner.Engine first = new MatchRunner.Engine("first");
+    MatchRunner.Engine second = new MatchRunner.Engine("second");
+    first.set("depth", "2");
+    second.set("depth", "2");
+    MatchRunner runner = new MatchRunner(first, second, Arrays.asList(
+        "8/8/8/4k3/8/8/8/3QK3 w - - 0 1", "8/8/4k3/8/8/8/8/RR2K3 w - - 0 1"), 4, 2, 0, 0, 300);
+    try {
+      runner.run(null, System.out);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    MatchStatistics statistics = runner.getStatistics();
+    if (statistics.getDraws() != 0 || statistics.getWins() != 2) {
+      throw new IllegalStateException("Won endgames were not all won: " + statistics);
+    }
+  }
+
+  /**
+   * Checks OpeningBook.key against the Polyglot keys published for BOOK_FENS, starting with
+   * 0x463B96181691FC9C for the starting position.
+   * @throws IllegalStateException if a key differs
+   */
+  private static void bookKeys() {
+    for (int i = 0; i < BOOK_FENS.length; i++) {
+      long key = OpeningBook.key(Fen.parse(BOOK_FENS[i]));
+      if (key != BOOK_KEYS[i]) {
+        throw new IllegalStateException("Polyglot key of " + BOOK_FENS[i] + " is "
+            + Long.toHexString(key) + ", expected " + Long.toHexString(BOOK_KEYS[i]));
+      }
+    }
+    System.out.println("Book keys passed: " + BOOK_FENS.length + " positions");
+  }
+}
@@ -0,0 +1,145 @@
+import java.util.Arrays;
+
+/**
+ * A fixed-size table of search results keyed by Position hash. Entries are kept in two flat long
+ * arrays allocated up front, so storing and probing never allocates. The table is split into
+ * buckets of two entries: the first keeps the deepest result seen for its slot (or any result
+ * from a newer search), and the second is always overwritten.
+ *
+ * Each entry's data word packs the best move (bits 0-19), the score (bits 20-35), the depth
+ * (bits 36-43), the bound type (bits 44-45) and the search generation (bits 46-53).
+ *
+ * The table can be shared by several search threads without locking. Each key is stored XORed
+ * with its data word, so an entry torn by two threads writing at once no longer matches its hash
+ * and is simply treated as a miss.
+ *
+ * @author Eligh Alvarez
+ */
+public class TranspositionTable {
+
+  // Bound types. A data word is never 0 since every entry has a bound.
+  public static final int BOUND_EXACT = 1;
+  public static final int BOUND_LOWER = 2;
+  public static final int BOUND_UPPER = 3;
+
+  public static final int DEFAULT_MEGABYTES = 16;
+
+  // Two entries per bucket, each a 64-bit key and a 64-bit data word
+  private static final int BUCKET_BYTES = 32;
+
+  private long[] keys;
+  private long[] data;
+  private int bucketMask;
+  private int generation;
+
+  /**
+   * Creates a new table using at most the provided amount of memory.
+   * @param megabytes the size of the table in MB (at least 1)
+   */
+  public TranspositionTable(int megabytes) {
+    resize(megabytes);
+  }
+
+  /**
+   * Reallocates this table to use at most the provided amount of memory. All entries are lost.
+   * @param megabytes the size of the table in MB (at least 1)
+   */
+  public void resize(int megabytes) {
+    long buckets = Long.highestOneBit(Math.max(1, megabytes) * (1L << 20) / BUCKET_BYTES);
+    buckets = Math.min(buckets, 1L << 29);
+    keys = new long[(int) buckets * 2];
+    data = new long[(int) buckets * 2];
+    bucketMask = (int) buckets - 1;
+    generation = 0;
+  }
+
+  /**
+   * Removes every entry from this table.
+   */
+  public void clear() {
+    Arrays.fill(keys, 0L);
+    Arrays.fill(data, 0L);
+    generation = 0;
+  }
+
+  /**
+   * Marks the start of a new search, so that entries from older searches are replaced first.
+   */
+  public void newSearch() {
+    generation = (generation + 1) & 255;
+  }
+
+  /**
+   * Returns the data word stored for the provided hash.
+   * @param hash the Position hash to look up
+   * @return the packed entry data, or 0 if the hash is not in the table
+   */
+  public long probe(long hash) {
+    int index = ((int) hash & bucketMask) << 1;
+    long entry = data[index];
+    if (entry != 0 && (keys[index] ^ entry) == hash) return entry;
+    entry = data[index + 1];
+    if (entry != 0 && (keys[index + 1] ^ entry) == hash) return entry;
+    return 0L;
+  }
+
+  /**
+   * Stores a search result for the provided hash.
+   * @param hash the Position hash
+   * @param move the best move found, or Move.NONE
+   * @param score the score of the position
+   * @param depth the depth searched (0-255)
+   * @param bound one of BOUND_EXACT, BOUND_LOWER or BOUND_UPPER
+   */
+  public void store(long hash, int move, int score, int depth, int bound) {
+    int index = ((int) hash & bucketMask) << 1;
+    long deep = data[index];
+    if ((keys[index] ^ deep) != hash && deep != 0 && depth(deep) > depth
+        && generation(deep) == generation) {
+      index++;
+    }
+    long old = data[index];
+    if (move == Move.NONE && (keys[index] ^ old) == hash) move = move(old);
+
+    long entry = (move & 0xFFFFFL)
+        | ((score & 0xFFFFL) << 20)
+        | ((long) (depth & 255) << 36)
+        | ((long) bound << 44)
+        | ((long) generation << 46);
+    keys[index] = hash ^ entry;
+    data[index] = entry;
+  }
+
+  /**
+   * Returns roughly how full this table is with entries from the current search.
+   * @return the number of used entries per thousand
+   */
+  public int hashfull() {
+    int sample = Math.min(1000, data.length);
+    int used = 0;
+    for (int i = 0; i < sample; i++) {
+      if (data[i] != 0 && generation(data[i]) == generation) used++;
+    }
+    return used * 1000 / sample;
+  }
+
+  public static int move(long entry) {
+    return (int) (entry & 0xFFFFF);
+  }
+
+  public static int score(long entry) {
+    return (short) (entry >>> 20);
+  }
+
+  public static int depth(long entry) {
+    return (int) (entry >>> 36) & 255;
+  }
+
+  public static int bound(long entry) {
+    return (int) (entry >>> 44) & 3;
+  }
+
+  private static int generation(long entry) {
+    return (int) (entry >>> 46) & 255;
+  }
+}
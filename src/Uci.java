@@ -0,0 +1,427 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Plays through the Universal Chess Interface, so the engine can be driven by chess GUIs and match
+ * runners over standard input and output. Commands are read a line at a time and no board is
+ * printed; the supported commands are "uci", "isready", "setoption", "ucinewgame", "position",
+ * "go", "stop" and "quit".
+ *
+ * Searches run on a dedicated search thread, which prints the "info" lines and the final
+ * "bestmove". The input thread keeps reading while a search runs, so "isready" is answered at once
+ * and "stop" reaches the running Search as soon as it is read; the Search checks for it at every
+ * node. Commands that change the position or the settings wait for the search to finish.
+ *
+ * Castling, en passant and promotion are not part of this game, so moves using them are refused
+ * with an "info string" line and the rest of the position command is ignored.
+ *
+ * @author Eligh Alvarez
+ */
+public class Uci {
+
+  public static final String NAME = "Chess";
+  public static final String AUTHOR = "Eligh Alvarez";
+
+  // Kept back from the clock for the time it takes to send the move
+  private static final long MOVE_OVERHEAD = 30;
+
+  // Moves left in the game when the GUI does not say
+  private static final int DEFAULT_MOVES_TO_GO = 30;
+
+  private final BufferedReader input;
+  private final PrintStream output;
+  private final TranspositionTable table;
+  private final Search search;
+  private final Object lock;
+  private Position position;
+  private OpeningBook book;
+  private String bookFile;
+  private boolean bookBestOnly;
+  private Tablebase tablebase;
+
+  // Guarded by lock
+  private Runnable pending;
+  private boolean searching;
+  private boolean infinite;
+  private boolean stopRequested;
+  private boolean quit;
+
+  /**
+   * Plays through the Universal Chess Interface on standard input and output.
+   * @param args (unused)
+   */
+  public static void main(String[] args) {
+    PrintStream output = new PrintStream(
+        new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16), true);
+    BufferedReader input = new BufferedReader(new InputStreamReader(System.in,
+        StandardCharsets.UTF_8));
+    try {
+      new Uci(input, output).run();
+    } catch (IOException e) {
+      output.println("info string could not read input: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Creates a new Uci front end.
+   * @param input the commands to read
+   * @param output where responses are printed, which should flush on every line
+   */
+  public Uci(BufferedReader input, PrintStream output) {
+    this.input = input;
+    this.output = output;
+    table = new TranspositionTable(TranspositionTable.DEFAULT_MEGABYTES);
+    search = new Search(table);
+    search.setOutput(output);
+    lock = new Object();
+    position = Fen.parse(Fen.STARTING_POSITION);
+  }
+
+  /**
+   * Reads and answers commands until "quit" or the end of the input.
+   * @throws IOException if the input cannot be read
+   */
+  public void run() throws IOException {
+    Thread searcher = new Thread(this::searchLoop, "Uci search");
+    searcher.setDaemon(true);
+    searcher.start();
+    try {
+      for (String line = input.readLine(); line != null; line = input.readLine()) {
+        String[] tokens = line.trim().split("\\s+");
+        if (tokens[0].equals("quit")) break;
+        execute(tokens);
+      }
+    } finally {
+      stopSearch();
+      synchronized (lock) {
+        quit = true;
+        lock.notifyAll();
+      }
+      try {
+        searcher.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (tablebase != null) tablebase.close();
+    }
+  }
+
+  /**
+   * Answers one command.
+   * @param tokens the words of the command
+   */
+  private void execute(String[] tokens) {
+    switch (tokens[0]) {
+      case "uci":
+        output.println("id name " + NAME);
+        output.println("id author " + AUTHOR);
+        output.println("option name Hash type spin default "
+            + TranspositionTable.DEFAULT_MEGABYTES + " min 1 max 4096");
+        output.println("option name Threads type spin default 1 min 1 max 256");
+        output.println("option name BookFile type string default <empty>");
+        output.println("option name BookBestOnly type check default false");
+        output.println("option name TablebasePath type string default <empty>");
+        output.println("option name Clear Hash type button");
+        output.println("uciok");
+        break;
+      case "isready":
+        output.println("readyok");
+        break;
+      case "setoption":
+        awaitSearch();
+        executeSetOption(tokens);
+        break;
+      case "ucinewgame":
+        awaitSearch();
+        table.clear();
+        break;
+      case "position":
+        awaitSearch();
+        executePosition(tokens);
+        break;
+      case "go":
+        awaitSearch();
+        executeGo(tokens);
+        break;
+      case "stop":
+        stopSearch();
+        break;
+      case "":
+        break;
+      default:
+        output.println("info string unknown command " + tokens[0]);
+    }
+  }
+
+  /**
+   * Changes an option: "setoption name Hash value 64".
+   * @param tokens the words of the command
+   */
+  private void executeSetOption(String[] tokens) {
+    StringBuilder name = new StringBuilder();
+    StringBuilder value = new StringBuilder();
+    StringBuilder current = null;
+    for (int i = 1; i < tokens.length; i++) {
+      if (tokens[i].equals("name")) current = name;
+      else if (tokens[i].equals("value")) current = value;
+      else if (current != null) current.append(current.length() > 0 ? " " : "").append(tokens[i]);
+    }
+
+    try {
+      switch (name.toString().toLowerCase()) {
+        case "hash":
+          table.resize(Integer.parseInt(value.toString()));
+          break;
+        case "threads":
+          search.setThreads(Integer.parseInt(value.toString()));
+          break;
+        case "bookfile":
+          bookFile = isEmpty(value) ? null : value.toString();
+          openBook();
+          break;
+        case "bookbestonly":
+          bookBestOnly = value.toString().equals("true");
+          if (book != null) book.setBestOnly(bookBestOnly);
+          break;
+        case "tablebasepath":
+          if (tablebase != null) tablebase.close();
+          tablebase = isEmpty(value) ? null : new Tablebase(Paths.get(value.toString()));
+          search.setTablebase(tablebase);
+          break;
+        case "clear hash":
+          table.clear();
+          break;
+        default:
+          output.println("info string unknown option " + name);
+      }
+    } catch (NumberFormatException e) {
+      output.println("info string bad value for " + name + ": " + value);
+    } catch (IOException | IllegalArgumentException e) {
+      output.println("info string " + e.getMessage());
+    }
+  }
+
+  /**
+   * Opens the opening book set by the BookFile option, or closes it if the option is empty.
+   * @throws IOException if the book cannot be opened
+   */
+  private void openBook() throws IOException {
+    book = null;
+    search.setBook(null);
+    if (bookFile == null) return;
+    book = new OpeningBook(Paths.get(bookFile));
+    book.setBestOnly(bookBestOnly);
+    search.setBook(book);
+    output.println("info string opened book with " + book.size() + " entries");
+  }
+
+  /**
+   * Sets the position to search: "position startpos moves e2e4 e7e5" or
+   * "position fen <fen> moves ...". The position is built separately and only replaces the
+   * current one once the FEN and every move have been applied, so a bad command changes nothing.
+   * @param tokens the words of the command
+   */
+  private void executePosition(String[] tokens) {
+    int index = 1;
+    StringBuilder fen = new StringBuilder();
+    if (index < tokens.length && tokens[index].equals("startpos")) {
+      fen.append(Fen.STARTING_POSITION);
+      index++;
+    } else if (index < tokens.length && tokens[index].equals("fen")) {
+      for (index++; index < tokens.length && !tokens[index].equals("moves"); index++) {
+        fen.append(tokens[index]).append(' ');
+      }
+    } else {
+      output.println("info string position needs startpos or fen");
+      return;
+    }
+
+    Position next;
+    try {
+      next = Fen.parse(fen);
+    } catch (IllegalArgumentException e) {
+      output.println("info string " + e.getMessage());
+      return;
+    }
+    if (index < tokens.length && tokens[index].equals("moves")) {
+      for (index++; index < tokens.length; index++) {
+        int move = Move.parse(next, tokens[index]);
+        if (move == Move.NONE) {
+          output.println("info string illegal move " + tokens[index]);
+          return;
+        }
+        next.makeMove(move);
+      }
+    }
+    position = next;
+  }
+
+  /**
+   * Starts a search of the current position on the search thread: "go wtime 60000 btime 60000",
+   * "go movetime 1000", "go depth 8", "go nodes 100000" or "go infinite".
+   * @param tokens the words of the command
+   */
+  private void executeGo(String[] tokens) {
+    long[] clock = new long[2];
+    long[] increment = new long[2];
+    int movesToGo = 0;
+    long moveTime = 0;
+    long nodes = 0;
+    int depth = Search.MAX_PLY - 1;
+    boolean forever = false;
+    try {
+      for (int i = 1; i < tokens.length; i++) {
+        String value = i + 1 < tokens.length ? tokens[i + 1] : "";
+        switch (tokens[i]) {
+          case "wtime": clock[Position.WHITE] = Long.parseLong(value); i++; break;
+          case "btime": clock[Position.BLACK] = Long.parseLong(value); i++; break;
+          case "winc": increment[Position.WHITE] = Long.parseLong(value); i++; break;
+          case "binc": increment[Position.BLACK] = Long.parseLong(value); i++; break;
+          case "movestogo": movesToGo = Integer.parseInt(value); i++; break;
+          case "movetime": moveTime = Long.parseLong(value); i++; break;
+          case "nodes": nodes = Long.parseLong(value); i++; break;
+          case "depth": depth = Math.min(Integer.parseInt(value), Search.MAX_PLY - 1); i++; break;
+          case "infinite": forever = true; break;
+          default: break;
+        }
+      }
+    } catch (NumberFormatException e) {
+      output.println("info string go command improperly formatted");
+      return;
+    }
+
+    int side = position.getSideToMove();
+    long time = moveTime;
+    if (time == 0 && clock[side] > 0 && !forever) {
+      time = allocateTime(clock[side], increment[side], movesToGo);
+    }
+    Position root = new Position();
+    root.copyWithHistoryFrom(position);
+    long timeLimit = time;
+    long nodeLimit = nodes;
+    int depthLimit = Math.max(1, depth);
+    synchronized (lock) {
+      infinite = forever;
+      stopRequested = false;
+      searching = true;
+      pending = () -> search.search(root, depthLimit, timeLimit, nodeLimit);
+      lock.notifyAll();
+    }
+  }
+
+  /**
+   * Stops the running search and waits for it to print its best move. The stop is repeated until
+   * the search thread is done, in case it was read just before the search started and cleared it.
+   */
+  private void stopSearch() {
+    synchronized (lock) {
+      stopRequested = true;
+      lock.notifyAll();
+      while (searching) {
+        search.stop();
+        try {
+          lock.wait(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits for the running search to finish, so that commands which change the position or the
+   * settings do not disturb it. An infinite search is told to stop first, since it would
+   * otherwise never finish.
+   */
+  private void awaitSearch() {
+    boolean stop;
+    synchronized (lock) {
+      if (!searching) return;
+      stop = infinite;
+    }
+    if (stop) {
+      stopSearch();
+      return;
+    }
+    synchronized (lock) {
+      while (searching) {
+        try {
+          lock.wait();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Runs searches handed over by "go" and prints their best moves. Runs on the search thread.
+   */
+  private void searchLoop() {
+    while (true) {
+      Runnable job;
+      synchronized (lock) {
+        while (pending == null && !quit) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (quit) return;
+        job = pending;
+        pending = null;
+      }
+
+      job.run();
+
+      synchronized (lock) {
+        // Under "go infinite" the best move may only be sent once the GUI says "stop"
+        while (infinite && !stopRequested) {
+          try {
+            lock.wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+      }
+      int move = search.getBestMove();
+      output.println("bestmove " + (move == Move.NONE ? "0000" : Move.toString(move)));
+      synchronized (lock) {
+        searching = false;
+        lock.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * Decides how long to think about a move from the clock.
+   * @param remaining the time left on the clock in milliseconds
+   * @param increment the time added after each move in milliseconds
+   * @param movesToGo the moves left until the next time control, or 0 if not given
+   * @return the time budget in milliseconds (at least 1)
+   */
+  public static long allocateTime(long remaining, long increment, int movesToGo) {
+    int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+    long budget = remaining / moves + increment * 3 / 4;
+    return Math.max(1, Math.min(budget, remaining - MOVE_OVERHEAD));
+  }
+
+  /**
+   * Determines whether an option value means "not set".
+   * @param value the option value
+   * @return true if the value is empty or "<empty>"
+   */
+  private static boolean isEmpty(CharSequence value) {
+    return value.length() == 0 || "<empty>".contentEquals(value);
+  }
+}
@@ -0,0 +1,60 @@
+/**
+ * Contains the random keys used to hash Positions. A Position's hash is the XOR of the key of
+ * every piece on its square, the side key when black is to move, the key of the current castling
+ * rights and the key of the en passant file, if any. Because every term is XORed in and out
+ * independently, the hash can be updated in constant time as moves are made and taken back.
+ *
+ * @author Eligh Alvarez
+ */
+public final class Zobrist {
+
+  // Fixed seed so that hashes are reproducible between runs
+  private static final long SEED = 0x2545F4914F6CDD1DL;
+
+  public static final long[][] PIECES = new long[12][64];
+  public static final long[] CASTLING = new long[16];
+  public static final long[] EN_PASSANT = new long[8];
+  public static final long SIDE;
+
+  static {
+    long state = SEED;
+    for (int piece = 0; piece < 12; piece++) {
+      for (int square = 0; square < 64; square++) {
+        state += 0x9E3779B97F4A7C15L;
+        PIECES[piece][square] = mix(state);
+      }
+    }
+    for (int rights = 0; rights < 16; rights++) {
+      state += 0x9E3779B97F4A7C15L;
+      CASTLING[rights] = rights == 0 ? 0L : mix(state);
+    }
+    for (int file = 0; file < 8; file++) {
+      state += 0x9E3779B97F4A7C15L;
+      EN_PASSANT[file] = mix(state);
+    }
+    state += 0x9E3779B97F4A7C15L;
+    SIDE = mix(state);
+  }
+
+  private Zobrist() {}
+
+  /**
+   * Scrambles a counter value into a well-distributed 64-bit key (the SplitMix64 finalizer).
+   * @param z the value to scramble
+   * @return the scrambled value
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * Returns the key of an en passant square.
+   * @param square the en passant square, or Position.NO_SQUARE
+   * @return the key of the square's file, or 0 if there is no en passant square
+   */
+  public static long enPassant(int square) {
+    return square == Position.NO_SQUARE ? 0L : EN_PASSANT[square & 7];
+  }
+}
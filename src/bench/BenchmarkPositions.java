@@ -0,0 +1,28 @@
+/**
+ * The fixed positions the JMH benchmarks run on: the starting position, an open middlegame and a
+ * Rook endgame. Benchmarks take the index of a position as a parameter, so every result is
+ * reported per position.
+ *
+ * @author Eligh Alvarez
+ */
+public final class BenchmarkPositions {
+
+  public static final String[] FENS = {
+      Fen.STARTING_POSITION,
+      "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP2BPPP/R2QKB1R w KQ - 0 9",
+      "8/5pk1/6p1/2R5/p4P2/r5P1/6K1/8 b - - 0 45"
+  };
+
+  private BenchmarkPositions() {}
+
+  /**
+   * Creates a Board set up with one of the benchmark positions.
+   * @param index the index of the position in FENS
+   * @return a new Board holding the position
+   */
+  public static Board load(int index) {
+    Board board = new Board();
+    board.loadFen(FENS[index]);
+    return board;
+  }
+}
@@ -0,0 +1,93 @@
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the Board operations the console game runs on every command: collecting every attack
+ * of both colors, copying the Board, checking each move of the side to move for leaving its King
+ * in check, and rendering the Board as text, both through toString and through a reused
+ * BoardRenderer.
+ *
+ * @author Eligh Alvarez
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+  @Param({"0", "1", "2"})
+  public int position;
+
+  private Board board;
+  private BoardRenderer renderer;
+  private Vector2[] from;
+  private Vector2[] to;
+
+  /**
+   * Loads the position and lists every move of the side to move.
+   */
+  @Setup
+  public void setUp() {
+    board = BenchmarkPositions.load(position);
+    renderer = new BoardRenderer(true);
+    ArrayList<Vector2> moveFrom = new ArrayList<>();
+    ArrayList<Vector2> moveTo = new ArrayList<>();
+    for (int x = 1; x <= 8; x++) {
+      for (int y = 1; y <= 8; y++) {
+        Vector2 pos = new Vector2(x, y);
+        GamePiece piece = board.getSquare(pos).getPiece();
+        if (piece == null || piece.getSide() != board.getSideToMove()) continue;
+        for (Vector2 target : piece.getMoves(board, pos)) {
+          moveFrom.add(pos);
+          moveTo.add(target);
+        }
+        for (Vector2 target : piece.getAttacks(board, pos)) {
+          moveFrom.add(pos);
+          moveTo.add(target);
+        }
+      }
+    }
+    from = moveFrom.toArray(new Vector2[0]);
+    to = moveTo.toArray(new Vector2[0]);
+  }
+
+  @Benchmark
+  public void getAllAttacks(Blackhole blackhole) {
+    blackhole.consume(board.getAllAttacks(Position.WHITE));
+    blackhole.consume(board.getAllAttacks(Position.BLACK));
+  }
+
+  @Benchmark
+  public Board copy() {
+    return board.copy();
+  }
+
+  @Benchmark
+  public void movesIntoCheck(Blackhole blackhole) {
+    for (int i = 0; i < from.length; i++) blackhole.consume(board.movesIntoCheck(from[i], to[i]));
+  }
+
+  @Benchmark
+  public String render() {
+    return board.toString();
+  }
+
+  @Benchmark
+  public int renderInPlace() {
+    return renderer.render(board);
+  }
+}
@@ -0,0 +1,76 @@
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures GamePiece.getMoves and getAttacks for each type of piece. Each call covers every piece
+ * of the chosen type on the Board, of both colors, so the score is the time to generate the moves
+ * or attacks of all of them.
+ *
+ * @author Eligh Alvarez
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceBenchmark {
+
+  @Param({"Pawn", "Knight", "Bishop", "Rook", "Queen", "King"})
+  public String type;
+
+  @Param({"0", "1", "2"})
+  public int position;
+
+  private Board board;
+  private GamePiece[] pieces;
+  private Vector2[] squares;
+
+  /**
+   * Loads the position and finds the pieces of the chosen type.
+   */
+  @Setup
+  public void setUp() {
+    board = BenchmarkPositions.load(position);
+    ArrayList<GamePiece> found = new ArrayList<>();
+    ArrayList<Vector2> foundSquares = new ArrayList<>();
+    for (int x = 1; x <= 8; x++) {
+      for (int y = 1; y <= 8; y++) {
+        Vector2 pos = new Vector2(x, y);
+        GamePiece piece = board.getSquare(pos).getPiece();
+        if (piece != null && piece.getClass().getSimpleName().equals(type)) {
+          found.add(piece);
+          foundSquares.add(pos);
+        }
+      }
+    }
+    pieces = found.toArray(new GamePiece[0]);
+    squares = foundSquares.toArray(new Vector2[0]);
+  }
+
+  @Benchmark
+  public void getMoves(Blackhole blackhole) {
+    for (int i = 0; i < pieces.length; i++) {
+      blackhole.consume(pieces[i].getMoves(board, squares[i]));
+    }
+  }
+
+  @Benchmark
+  public void getAttacks(Blackhole blackhole) {
+    for (int i = 0; i < pieces.length; i++) {
+      blackhole.consume(pieces[i].getAttacks(board, squares[i]));
+    }
+  }
+}